@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 
+ * {@link BenchmarkFiles} generates the input files of benchmarks. A generated
+ * file is kept in the temporary directory and reused by later runs.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class BenchmarkFiles {
+
+  private static final Path DIR = Paths
+      .get(System.getProperty("java.io.tmpdir"), "parallel-reader-benchmark");
+
+  private BenchmarkFiles() {}
+
+  /**
+   * Parses a size like 1MB, 64MB or 10GB into bytes.
+   * 
+   * @param size
+   *          a size with an unit of KB, MB or GB
+   * @return the number of bytes
+   */
+  public static long parseSize(String size) {
+    String s = size.trim().toUpperCase(Locale.ROOT);
+    long unit = 1;
+    if (s.endsWith("KB")) {
+      unit = 1L << 10;
+    } else if (s.endsWith("MB")) {
+      unit = 1L << 20;
+    } else if (s.endsWith("GB")) {
+      unit = 1L << 30;
+    }
+    if (unit > 1) s = s.substring(0, s.length() - 2);
+    return Long.parseLong(s.trim()) * unit;
+  }
+
+  /**
+   * Returns a file of lines with the given size, line length and
+   * {@link Charset}, which is generated if it does not exist yet. Every line
+   * has the given number of characters and some of them are non-ASCII if the
+   * {@link Charset} can encode them.
+   * 
+   * @param size
+   *          the size of the file, see {@link #parseSize(String)}
+   * @param lineLength
+   *          the number of characters of each line
+   * @param charset
+   *          the {@link Charset} of the file
+   * @return a {@link File}
+   * @throws IOException
+   *           if any I/O Exception happened during writing
+   */
+  public static File lines(String size, int lineLength, Charset charset)
+      throws IOException {
+    long bytes = parseSize(size);
+    Path path = DIR.resolve(
+        "lines-" + size + "-" + lineLength + "-" + charset.name() + ".txt");
+    if (Files.exists(path) && Files.size(path) >= bytes) return path.toFile();
+
+    Files.createDirectories(DIR);
+    Path tmp = Files.createTempFile(DIR, "lines", ".tmp");
+    boolean nonAscii = charset.newEncoder().canEncode('\u00e9');
+    Random rand = new Random(lineLength);
+    char[] line = new char[lineLength + 1];
+    line[lineLength] = '\n';
+
+    long written = 0;
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+        Files.newOutputStream(tmp), charset), 1 << 16)) {
+      while (written < bytes) {
+        for (int i = 0; i < lineLength; i++) {
+          line[i] = nonAscii && rand.nextInt(16) == 0 ? '\u00e9'
+              : (char) ('a' + rand.nextInt(26));
+        }
+        writer.write(line);
+        written += new String(line).getBytes(charset).length;
+      }
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    return path.toFile();
+  }
+
+}
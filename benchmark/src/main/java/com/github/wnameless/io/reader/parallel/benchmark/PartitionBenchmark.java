@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.wnameless.io.reader.parallel.LineReaders;
+
+/**
+ * 
+ * {@link PartitionBenchmark} measures how fast partition points are found out.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PartitionBenchmark {
+
+  @Param({ "1MB", "64MB" })
+  public String fileSize;
+
+  @Param({ "16", "128", "1024" })
+  public int lineLength;
+
+  @Param({ "UTF-8", "ISO-8859-1" })
+  public String charset;
+
+  @Param({ "1000", "100000" })
+  public int maxLines;
+
+  private File file;
+  private Charset cs;
+
+  @Setup
+  public void setup() throws IOException {
+    cs = Charset.forName(charset);
+    file = BenchmarkFiles.lines(fileSize, lineLength, cs);
+  }
+
+  @Benchmark
+  public List<Long> getPartitionPoints() throws IOException {
+    return LineReaders.getPartitionPoints(file, cs, maxLines);
+  }
+
+  @Benchmark
+  public List<Long> getPartitionPointsParallelly() throws IOException {
+    return LineReaders.getPartitionPointsParallelly(file, cs, maxLines);
+  }
+
+  @Benchmark
+  public List<Long> getSkipPoints() throws IOException {
+    return LineReaders.getSkipPoints(
+        new InputStreamReader(new FileInputStream(file), cs), maxLines);
+  }
+
+}
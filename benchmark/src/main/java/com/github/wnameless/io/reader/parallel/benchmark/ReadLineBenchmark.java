@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.wnameless.io.reader.parallel.LineReader;
+import com.github.wnameless.io.reader.parallel.LineReaders;
+
+/**
+ * 
+ * {@link ReadLineBenchmark} measures the sequential reading of a
+ * {@link LineReader} against {@link BufferedReader} and {@link Files#lines}.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadLineBenchmark {
+
+  @Param({ "1MB", "64MB" })
+  public String fileSize;
+
+  @Param({ "16", "128", "1024" })
+  public int lineLength;
+
+  @Param({ "UTF-8", "ISO-8859-1" })
+  public String charset;
+
+  private File file;
+  private Charset cs;
+
+  @Setup
+  public void setup() throws IOException {
+    cs = Charset.forName(charset);
+    file = BenchmarkFiles.lines(fileSize, lineLength, cs);
+  }
+
+  @Benchmark
+  public void lineReader(Blackhole bh) throws IOException {
+    LineReader lr =
+        LineReaders.toLineReader(file, cs, 0, Integer.MAX_VALUE);
+    while (lr.hasNext()) {
+      bh.consume(lr.readLine());
+    }
+    lr.close();
+  }
+
+  @Benchmark
+  public void mappedLineReader(Blackhole bh) throws IOException {
+    LineReader lr = LineReaders.toMappedLineReader(file, cs, 0, file.length());
+    while (lr.hasNext()) {
+      bh.consume(lr.readLine());
+    }
+    lr.close();
+  }
+
+  @Benchmark
+  public void bufferedReader(Blackhole bh) throws IOException {
+    try (BufferedReader br = new BufferedReader(
+        new InputStreamReader(new FileInputStream(file), cs))) {
+      String line;
+      while ((line = br.readLine()) != null) {
+        bh.consume(line);
+      }
+    }
+  }
+
+  @Benchmark
+  public void filesLines(Blackhole bh) throws IOException {
+    try (Stream<String> lines = Files.lines(file.toPath(), cs)) {
+      lines.forEach(bh::consume);
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.wnameless.io.reader.parallel.LineReaderFunction;
+import com.github.wnameless.io.reader.parallel.LineReaders;
+
+/**
+ * 
+ * {@link ReadParallellyBenchmark} measures reading a whole file end to end by
+ * {@link LineReaders#readParallelly} against a parallel {@link Files#lines}
+ * and a sequential {@link BufferedReader}. Every benchmark sums up the lengths
+ * of all lines.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadParallellyBenchmark {
+
+  private static final LineReaderFunction<Long> SUM_LENGTHS = (part, lr) -> {
+    long sum = 0;
+    while (lr.hasNext()) {
+      sum += lr.readLineQuietly().length();
+    }
+    lr.closeQuietly();
+    return sum;
+  };
+
+  @Param({ "1MB", "64MB" })
+  public String fileSize;
+
+  @Param({ "128" })
+  public int lineLength;
+
+  @Param({ "UTF-8" })
+  public String charset;
+
+  @Param({ "1000", "100000" })
+  public int maxLines;
+
+  @Param({ "1", "4", "8" })
+  public int threads;
+
+  private File file;
+  private Charset cs;
+  private ExecutorService executor;
+  private ForkJoinPool pool;
+
+  @Setup
+  public void setup() throws IOException {
+    cs = Charset.forName(charset);
+    file = BenchmarkFiles.lines(fileSize, lineLength, cs);
+    executor = Executors.newFixedThreadPool(threads);
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdown();
+    pool.shutdown();
+  }
+
+  private static long join(List<CompletableFuture<Long>> futures) {
+    long sum = 0;
+    for (CompletableFuture<Long> future : futures) {
+      sum += future.join();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long readParallelly() throws IOException {
+    return join(LineReaders.readParallelly(file, cs, maxLines, SUM_LENGTHS,
+        executor));
+  }
+
+  @Benchmark
+  public long readParallellyInSinglePass() throws IOException {
+    return join(LineReaders.readParallelly(
+        new InputStreamReader(new FileInputStream(file), cs), maxLines,
+        SUM_LENGTHS, executor));
+  }
+
+  @Benchmark
+  public long readParallellyMapped() throws IOException {
+    return join(LineReaders.readParallellyMapped(file, cs, threads,
+        SUM_LENGTHS, executor));
+  }
+
+  @Benchmark
+  public long filesLinesParallel() throws Exception {
+    return pool.submit(() -> {
+      try (Stream<String> lines = Files.lines(file.toPath(), cs)) {
+        return lines.parallel().mapToLong(String::length).sum();
+      }
+    }).get();
+  }
+
+  @Benchmark
+  public long bufferedReader() throws IOException {
+    long sum = 0;
+    try (BufferedReader br = new BufferedReader(
+        new InputStreamReader(new FileInputStream(file), cs))) {
+      String line;
+      while ((line = br.readLine()) != null) {
+        sum += line.length();
+      }
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,315 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * 
+ * {@link BgzfBlocks} is the block index of a BGZF (blocked gzip) file. A BGZF
+ * file is a series of gzip members, each of which records its own compressed
+ * size in a "BC" extra subfield and its uncompressed size in the trailer, so
+ * all blocks can be located by reading their headers only and every block can
+ * be decompressed independently.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class BgzfBlocks {
+
+  private static final int ID1 = 31;
+  private static final int ID2 = 139;
+  private static final int CM_DEFLATE = 8;
+  private static final int FLG_FEXTRA = 4;
+  private static final int FIXED_HEADER_SIZE = 12;
+  private static final int TRAILER_SIZE = 8;
+
+  private final long[] offsets;
+  private final int[] sizes;
+
+  private BgzfBlocks(long[] offsets, int[] sizes) {
+    this.offsets = offsets;
+    this.sizes = sizes;
+  }
+
+  /**
+   * Checks if a {@link FileChannel} starts with a BGZF block.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @return true if the first block is a BGZF block, false otherwise
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static boolean isBgzf(FileChannel channel) throws IOException {
+    return channel.size() > 0 && blockSize(channel, 0) > 0;
+  }
+
+  /**
+   * Locates all blocks of a BGZF {@link FileChannel}.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @return a {@link BgzfBlocks}
+   * @throws IOException
+   *           if any I/O Exception happened during reading or the channel is
+   *           not a BGZF file
+   */
+  static BgzfBlocks scan(FileChannel channel) throws IOException {
+    long size = channel.size();
+    long[] offsets = new long[16];
+    int[] sizes = new int[16];
+    int count = 0;
+
+    ByteBuffer isize = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    long offset = 0;
+    while (offset < size) {
+      int blockSize = blockSize(channel, offset);
+      if (blockSize <= 0 || offset + blockSize > size) {
+        throw new ZipException("Not a BGZF block at offset " + offset);
+      }
+
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        sizes = Arrays.copyOf(sizes, count * 2);
+      }
+      isize.clear();
+      readFully(channel, isize, offset + blockSize - 4);
+      offsets[count] = offset;
+      sizes[count] = isize.getInt(0);
+      count++;
+
+      offset += blockSize;
+    }
+
+    long[] blockOffsets = Arrays.copyOf(offsets, count + 1);
+    blockOffsets[count] = size;
+    return new BgzfBlocks(blockOffsets, Arrays.copyOf(sizes, count));
+  }
+
+  /**
+   * Returns the total size of a BGZF block which starts at the given offset.
+   * 
+   * @return the size of the block, or -1 if it is not a BGZF block
+   */
+  private static int blockSize(FileChannel channel, long offset)
+      throws IOException {
+    ByteBuffer header =
+        ByteBuffer.allocate(FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if (!tryReadFully(channel, header, offset)) return -1;
+    if ((header.get(0) & 0xFF) != ID1 || (header.get(1) & 0xFF) != ID2
+        || header.get(2) != CM_DEFLATE
+        || (header.get(3) & FLG_FEXTRA) == 0) {
+      return -1;
+    }
+
+    int xlen = header.getShort(10) & 0xFFFF;
+    ByteBuffer extra =
+        ByteBuffer.allocate(xlen).order(ByteOrder.LITTLE_ENDIAN);
+    if (!tryReadFully(channel, extra, offset + FIXED_HEADER_SIZE)) return -1;
+
+    int i = 0;
+    while (i + 4 <= xlen) {
+      int slen = extra.getShort(i + 2) & 0xFFFF;
+      if (extra.get(i) == 'B' && extra.get(i + 1) == 'C' && slen == 2
+          && i + 6 <= xlen) {
+        return (extra.getShort(i + 4) & 0xFFFF) + 1;
+      }
+      i += 4 + slen;
+    }
+    return -1;
+  }
+
+  private static boolean tryReadFully(FileChannel channel, ByteBuffer buf,
+      long position) throws IOException {
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) <= 0) return false;
+    }
+    return true;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buf,
+      long position) throws IOException {
+    if (!tryReadFully(channel, buf, position)) {
+      throw new ZipException("Unexpected end of BGZF file");
+    }
+  }
+
+  /**
+   * Returns the number of blocks.
+   * 
+   * @return the number of blocks
+   */
+  int count() {
+    return sizes.length;
+  }
+
+  /**
+   * Returns the file offset of a block. The offset of the block right after
+   * the last one is the size of the file.
+   * 
+   * @param block
+   *          the index of a block
+   * @return the file offset of the block
+   */
+  long offset(int block) {
+    return offsets[block];
+  }
+
+  /**
+   * Returns the uncompressed size of a block.
+   * 
+   * @param block
+   *          the index of a block
+   * @return the uncompressed size of the block
+   */
+  int uncompressedSize(int block) {
+    return sizes[block];
+  }
+
+  /**
+   * Opens an {@link InputStream} which decompresses blocks one by one from the
+   * given block to the end of the file.
+   * 
+   * @param channel
+   *          the {@link FileChannel} of the blocks
+   * @param fromBlock
+   *          the index of the first block
+   * @return an {@link InputStream} of uncompressed bytes
+   */
+  InputStream open(FileChannel channel, int fromBlock) {
+    return new BlockInputStream(channel, fromBlock);
+  }
+
+  /**
+   * Returns the last uncompressed byte before the given block, which tells
+   * whether the block starts in the middle of a line.
+   * 
+   * @param channel
+   *          the {@link FileChannel} of the blocks
+   * @param block
+   *          the index of a block
+   * @return the last byte before the block, or -1 if there is none
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  int lastByteBefore(FileChannel channel, int block) throws IOException {
+    for (int i = block - 1; i >= 0; i--) {
+      if (sizes[i] == 0) continue;
+
+      Inflater inflater = new Inflater(true);
+      try {
+        byte[] data = inflate(channel, i, inflater);
+        return data[data.length - 1] & 0xFF;
+      } finally {
+        inflater.end();
+      }
+    }
+    return -1;
+  }
+
+  private byte[] inflate(FileChannel channel, int block, Inflater inflater)
+      throws IOException {
+    int blockSize = (int) (offsets[block + 1] - offsets[block]);
+    ByteBuffer compressed =
+        ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, compressed, offsets[block]);
+
+    int headerSize = FIXED_HEADER_SIZE + (compressed.getShort(10) & 0xFFFF);
+    byte[] data = new byte[sizes[block]];
+    inflater.reset();
+    inflater.setInput(compressed.array(), headerSize,
+        blockSize - headerSize - TRAILER_SIZE);
+    try {
+      int n = 0;
+      while (n < data.length) {
+        int inflated = inflater.inflate(data, n, data.length - n);
+        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new ZipException("Corrupt BGZF block at offset "
+              + offsets[block]);
+        }
+        n += inflated;
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, data.length);
+    if ((int) crc.getValue() != compressed.getInt(blockSize - TRAILER_SIZE)) {
+      throw new ZipException("Corrupt BGZF block at offset " + offsets[block]
+          + ": CRC32 mismatch");
+    }
+    return data;
+  }
+
+  private final class BlockInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final Inflater inflater = new Inflater(true);
+
+    private int block;
+    private byte[] data = new byte[0];
+    private int position = 0;
+
+    BlockInputStream(FileChannel channel, int fromBlock) {
+      this.channel = channel;
+      block = fromBlock;
+    }
+
+    private boolean fill() throws IOException {
+      while (position >= data.length) {
+        if (block >= sizes.length) return false;
+        data = inflate(channel, block++, inflater);
+        position = 0;
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return fill() ? data[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) return 0;
+      if (!fill()) return -1;
+
+      int n = Math.min(len, data.length - position);
+      System.arraycopy(data, position, b, off, n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+      inflater.end();
+      channel.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,199 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * 
+ * {@link BoundedPartitionIterator} runs partition tasks by an {@link Executor}
+ * with 2 limits. At most a fixed number of tasks run at the same time, and at
+ * most a larger or equal number of tasks are pending, which counts both the
+ * running tasks and the finished tasks whose results are not taken by
+ * {@link #next()} yet. A new task is submitted as soon as a task finishes or a
+ * result is taken, whichever frees a slot under both limits, so results
+ * waiting to be taken do not stop the workers until the pending limit is
+ * reached. Results are taken in the order of partitions or in the order of
+ * completion.
+ * 
+ * @author Wei-Ming Wu
+ *
+ * @param <E>
+ *          the result type of each partition
+ */
+final class BoundedPartitionIterator<E> implements Iterator<E> {
+
+  private final int partitions;
+  private final IntFunction<Supplier<E>> taskFactory;
+  private final Executor executor;
+  private final int maxInFlight;
+  private final int maxPending;
+  private final boolean ordered;
+
+  private final Queue<CompletableFuture<E>> submitted = new ArrayDeque<>();
+  private final LinkedBlockingQueue<CompletableFuture<E>> completed =
+      new LinkedBlockingQueue<>();
+
+  private int nextPartition = 0;
+  private int running = 0;
+  private int finished = 0;
+  private int taken = 0;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a {@link BoundedPartitionIterator} and submits the first tasks.
+   * 
+   * @param partitions
+   *          the number of partitions
+   * @param taskFactory
+   *          a function to create the task of a partition by its index
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param maxInFlight
+   *          the max number of tasks which are running at the same time
+   * @param maxPending
+   *          the max number of tasks which are submitted but not taken, no
+   *          less than the max in-flight
+   * @param ordered
+   *          true to take results in the order of partitions, false to take
+   *          results in the order of completion
+   */
+  BoundedPartitionIterator(int partitions,
+      IntFunction<Supplier<E>> taskFactory, Executor executor,
+      int maxInFlight, int maxPending, boolean ordered) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("Max in-flight must be positive");
+    }
+    if (maxPending < maxInFlight) {
+      throw new IllegalArgumentException(
+          "Max pending must not be less than max in-flight");
+    }
+
+    this.partitions = partitions;
+    this.taskFactory = taskFactory;
+    this.executor = executor;
+    this.maxInFlight = maxInFlight;
+    this.maxPending = maxPending;
+    this.ordered = ordered;
+
+    fill();
+  }
+
+  /**
+   * Submits tasks until any limit is reached. The slots are reserved under
+   * the lock, but tasks are submitted outside of it, because an
+   * {@link Executor} may run a task on the calling thread.
+   */
+  private void fill() {
+    while (true) {
+      int partition;
+      CompletableFuture<E> result = new CompletableFuture<>();
+      synchronized (this) {
+        if (closed || nextPartition >= partitions || running >= maxInFlight
+            || running + finished >= maxPending) {
+          return;
+        }
+        partition = nextPartition++;
+        running++;
+        if (ordered) submitted.add(result);
+      }
+      submit(partition, result);
+    }
+  }
+
+  private void submit(int partition, CompletableFuture<E> result) {
+    CompletableFuture<E> future;
+    try {
+      future = CompletableFuture.supplyAsync(taskFactory.apply(partition),
+          executor);
+    } catch (RuntimeException e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+
+    future.whenComplete((r, e) -> {
+      synchronized (this) {
+        running--;
+        finished++;
+      }
+      if (e == null) {
+        result.complete(r);
+      } else {
+        result.completeExceptionally(e);
+      }
+      if (!ordered) completed.add(result);
+      fill();
+    });
+  }
+
+  @Override
+  public boolean hasNext() {
+    return taken < partitions && !closed;
+  }
+
+  /**
+   * Waits for and returns the next result, and then submits more tasks if
+   * any slot is freed.
+   * 
+   * @return the result of a partition
+   * @throws java.util.concurrent.CompletionException
+   *           if the task of the partition failed
+   */
+  @Override
+  public E next() {
+    if (!hasNext()) throw new NoSuchElementException();
+
+    CompletableFuture<E> future;
+    if (ordered) {
+      synchronized (this) {
+        future = submitted.remove();
+      }
+    } else {
+      try {
+        future = completed.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+
+    try {
+      return future.join();
+    } finally {
+      taken++;
+      synchronized (this) {
+        finished--;
+      }
+      fill();
+    }
+  }
+
+  /**
+   * Stops submitting tasks. Tasks which are already submitted keep running.
+   */
+  void close() {
+    closed = true;
+  }
+
+}
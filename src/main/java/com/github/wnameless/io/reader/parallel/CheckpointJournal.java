@@ -0,0 +1,366 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 
+ * {@link CheckpointJournal} records the progress of a parallel read of a file
+ * in a small local journal, so a rerun after a crash only reads the parts
+ * which were not finished. The journal starts with the partition plan of the
+ * file and a SHA-256 digest of the plan, followed by an entry of the index
+ * and the byte range of each finished part. A journal is only reused if the
+ * size, the last modified time, the {@link Charset} and the max number of
+ * lines of each part are unchanged, and then the partition points are taken
+ * from the journal instead of scanning the file again.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class CheckpointJournal implements Closeable {
+
+  /**
+   * The extension of a default journal file.
+   */
+  public static final String FILE_EXTENSION = ".plr-ckpt";
+
+  private static final int MAGIC = 0x504C5243; // PLRC
+  private static final int VERSION = 2;
+  private static final int DIGEST_SIZE = 32;
+  private static final int PREFIX_SIZE = 4 + 4 + DIGEST_SIZE + 4;
+  private static final int ENTRY_SIZE = 4 + 8 + 8;
+
+  private final File journalFile;
+  private final long[] points;
+  private final long fileSize;
+  private final BitSet completed;
+  private final FileChannel channel;
+
+  private CheckpointJournal(File journalFile, long[] points, long fileSize,
+      BitSet completed, FileChannel channel) {
+    this.journalFile = journalFile;
+    this.points = points;
+    this.fileSize = fileSize;
+    this.completed = completed;
+    this.channel = channel;
+  }
+
+  /**
+   * Returns the default journal file of given {@link File}.
+   * 
+   * @param file
+   *          which is read
+   * @return the default journal file
+   */
+  public static File getJournalFile(File file) {
+    return new File(file.getPath() + FILE_EXTENSION);
+  }
+
+  /**
+   * Opens a journal for reading the given {@link File}. An existing journal
+   * of the same plan is resumed, otherwise the partition points are found out
+   * by {@link LineReaders#getPartitionPointsParallelly(File, Charset, int)}
+   * and a new journal is started.
+   * 
+   * @param journalFile
+   *          the file of the journal
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a {@link CheckpointJournal}
+   * @throws IOException
+   *           if any I/O Exception happened during reading or writing
+   */
+  public static CheckpointJournal open(File journalFile, File file,
+      Charset charset, int maxLines) throws IOException {
+    CheckpointJournal journal = resume(journalFile, file, charset, maxLines);
+    if (journal != null) return journal;
+
+    List<Long> partitionPoints =
+        LineReaders.getPartitionPointsParallelly(file, charset, maxLines);
+    long[] points = new long[partitionPoints.size()];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = partitionPoints.get(i);
+    }
+    byte[] header = header(file, charset, maxLines, points);
+
+    FileChannel channel = FileChannel.open(journalFile.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      ByteBuffer buf = ByteBuffer.allocate(PREFIX_SIZE + header.length);
+      buf.putInt(MAGIC).putInt(VERSION).put(digest(header))
+          .putInt(header.length).put(header);
+      buf.flip();
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    return new CheckpointJournal(journalFile, points, file.length(),
+        new BitSet(points.length), channel);
+  }
+
+  private static CheckpointJournal resume(File journalFile, File file,
+      Charset charset, int maxLines) throws IOException {
+    if (!journalFile.isFile()) return null;
+
+    long[] points;
+    BitSet completed = new BitSet();
+    long entriesStart;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(journalFile.toPath())))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+      byte[] digest = new byte[DIGEST_SIZE];
+      in.readFully(digest);
+
+      // The plan is verified as a whole before any field of it is trusted
+      int headerLength = in.readInt();
+      if (headerLength < 0
+          || headerLength > journalFile.length() - PREFIX_SIZE) {
+        return null;
+      }
+      byte[] header = new byte[headerLength];
+      in.readFully(header);
+      if (!MessageDigest.isEqual(digest, digest(header))) return null;
+
+      points = parsePoints(header, file, charset, maxLines);
+      if (points == null) return null;
+      entriesStart = PREFIX_SIZE + headerLength;
+
+      long fileSize = file.length();
+      try {
+        while (true) {
+          int part = in.readInt();
+          long start = in.readLong();
+          long end = in.readLong();
+          if (part >= 0 && part < points.length && start == points[part]
+              && end == end(points, part, fileSize)) {
+            completed.set(part);
+          }
+          entriesStart += ENTRY_SIZE;
+        }
+      } catch (EOFException e) {
+        // A partly written last entry is dropped below
+      }
+    } catch (IOException | RuntimeException e) {
+      // A broken journal is treated as no journal
+      return null;
+    }
+
+    FileChannel channel =
+        FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE);
+    channel.truncate(entriesStart);
+    channel.position(entriesStart);
+    return new CheckpointJournal(journalFile, points, file.length(),
+        completed, channel);
+  }
+
+  /**
+   * Parses the partition points of a verified header.
+   * 
+   * @return the partition points, or null if the header belongs to another
+   *         plan or the points are invalid
+   */
+  private static long[] parsePoints(byte[] header, File file, Charset charset,
+      int maxLines) throws IOException {
+    DataInputStream in =
+        new DataInputStream(new ByteArrayInputStream(header));
+    long fileSize = file.length();
+    if (!in.readUTF().equals(file.getAbsolutePath())
+        || !in.readUTF().equals(charset.name())
+        || in.readLong() != file.lastModified() || in.readLong() != fileSize
+        || in.readInt() != maxLines) {
+      return null;
+    }
+
+    int count = in.readInt();
+    if (count < 1 || count != in.available() / 8 || in.available() % 8 != 0) {
+      return null;
+    }
+    long[] points = new long[count];
+    for (int i = 0; i < count; i++) {
+      points[i] = in.readLong();
+      if (i == 0 ? points[i] != 0
+          : points[i] <= points[i - 1] || points[i] > fileSize) {
+        return null;
+      }
+    }
+    return points;
+  }
+
+  private static byte[] header(File file, Charset charset, int maxLines,
+      long[] points) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeUTF(file.getAbsolutePath());
+    out.writeUTF(charset.name());
+    out.writeLong(file.lastModified());
+    out.writeLong(file.length());
+    out.writeInt(maxLines);
+    out.writeInt(points.length);
+    for (long point : points) {
+      out.writeLong(point);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] digest(byte[] header) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(header);
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static long end(long[] points, int part, long fileSize) {
+    return part + 1 < points.length ? points[part + 1] : fileSize;
+  }
+
+  /**
+   * Returns the file of this journal.
+   * 
+   * @return the journal file
+   */
+  public File getJournalFile() {
+    return journalFile;
+  }
+
+  /**
+   * Returns the partition points of the plan of this journal.
+   * 
+   * @return a copy of the partition points
+   */
+  public long[] getPartitionPoints() {
+    return points.clone();
+  }
+
+  /**
+   * Returns the number of parts of the plan of this journal.
+   * 
+   * @return the number of parts
+   */
+  public int getPartitionCount() {
+    return points.length;
+  }
+
+  /**
+   * Returns the start of a part.
+   * 
+   * @param part
+   *          the index of a part
+   * @return the byte offset of the part start
+   */
+  public long getStart(int part) {
+    return points[part];
+  }
+
+  /**
+   * Returns the end of a part.
+   * 
+   * @param part
+   *          the index of a part
+   * @return the byte offset of the part end
+   */
+  public long getEnd(int part) {
+    return end(points, part, fileSize);
+  }
+
+  /**
+   * Checks if a part is finished in this or a previous run.
+   * 
+   * @param part
+   *          the index of a part
+   * @return true if the part is finished, false otherwise
+   */
+  public synchronized boolean isCompleted(int part) {
+    return completed.get(part);
+  }
+
+  /**
+   * Returns the number of finished parts.
+   * 
+   * @return the number of finished parts
+   */
+  public synchronized int getCompletedCount() {
+    return completed.cardinality();
+  }
+
+  /**
+   * Appends an entry of a finished part to the journal. Each entry is written
+   * by a single write, so it survives a crash of the JVM once this method
+   * returns.
+   * 
+   * @param part
+   *          the index of a part
+   * @throws IOException
+   *           if any I/O Exception happened during writing
+   */
+  public synchronized void complete(int part) throws IOException {
+    if (completed.get(part)) return;
+
+    ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+    entry.putInt(part).putLong(getStart(part)).putLong(getEnd(part));
+    entry.flip();
+    while (entry.hasRemaining()) {
+      channel.write(entry);
+    }
+    completed.set(part);
+  }
+
+  /**
+   * Closes and deletes the journal, which is done after all parts are
+   * finished.
+   * 
+   * @throws IOException
+   *           if any I/O Exception happened during deleting
+   */
+  public synchronized void delete() throws IOException {
+    channel.close();
+    Files.deleteIfExists(journalFile.toPath());
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * {@link ChunkScheduler} reads a file by a fixed number of workers which claim
+ * small byte chunks from a shared cursor. Chunk k covers the lines which start
+ * within [k * chunkSize, (k + 1) * chunkSize), so its boundaries can be aligned
+ * to line starts by any worker independently. A worker which finishes early
+ * simply claims more chunks, so a slow chunk never holds back the rest of the
+ * file.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class ChunkScheduler {
+
+  static final long DEFAULT_CHUNK_SIZE = 1L << 20;
+
+  private ChunkScheduler() {}
+
+  /**
+   * Reads all chunks of a file by the given number of workers.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param chunkSize
+   *          the bytes of each chunk
+   * @param lineReaderFunction
+   *          a function to process each chunk, whose index is the chunk number
+   * @param executor
+   *          a Java {@link Executor} to run workers
+   * @param workers
+   *          the number of workers
+   * @return a list of {@link CompletableFuture}s, one for each chunk in order
+   */
+  static <E> List<CompletableFuture<E>> schedule(File file, Charset charset,
+      long chunkSize, LineReaderFunction<E> lineReaderFunction,
+      Executor executor, int workers) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    if (workers < 1) {
+      throw new IllegalArgumentException("Workers must be positive");
+    }
+
+    long size = file.length();
+    long count = Math.max(1, (size + chunkSize - 1) / chunkSize);
+    if (count > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Chunk size is too small");
+    }
+
+    List<CompletableFuture<E>> futures = new ArrayList<>((int) count);
+    for (int i = 0; i < count; i++) {
+      futures.add(new CompletableFuture<>());
+    }
+
+    AtomicInteger cursor = new AtomicInteger();
+    for (int w = 0; w < Math.min(workers, count); w++) {
+      executor.execute(() -> work(file, charset, size, chunkSize,
+          lineReaderFunction, futures, cursor));
+    }
+
+    return futures;
+  }
+
+  private static <E> void work(File file, Charset charset, long size,
+      long chunkSize, LineReaderFunction<E> lineReaderFunction,
+      List<CompletableFuture<E>> futures, AtomicInteger cursor) {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    } catch (IOException e) {
+      int k;
+      while ((k = cursor.getAndIncrement()) < futures.size()) {
+        futures.get(k).completeExceptionally(e);
+      }
+      return;
+    }
+
+    try {
+      int k;
+      while ((k = cursor.getAndIncrement()) < futures.size()) {
+        CompletableFuture<E> future = futures.get(k);
+        try {
+          long start = LineBoundaries.nextLineStart(channel,
+              Math.min(size, k * chunkSize), size);
+          long end = LineBoundaries.nextLineStart(channel,
+              Math.min(size, (k + 1) * chunkSize), size);
+          future.complete(lineReaderFunction.apply(k,
+              LineReaders.toRangeLineReader(file, charset, start, end)));
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      }
+    } finally {
+      try {
+        channel.close();
+      } catch (IOException e) {}
+    }
+  }
+
+}
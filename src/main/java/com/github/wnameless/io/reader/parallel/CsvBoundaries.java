@@ -0,0 +1,208 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 
+ * {@link CsvBoundaries} finds out record boundaries of a CSV file parallelly.
+ * Line terminators inside quoted fields do not end a record, so a boundary
+ * depends on the parsing state of the bytes before it. The states follow
+ * {@link CsvRecordReader} exactly: a quote opens a quoted field only at the
+ * start of a field, and elsewhere it is an ordinary byte. The file is divided
+ * into byte blocks and each block is scanned parallelly under every possible
+ * state at the beginning of the block, for its state at the end and its first
+ * record end. The blocks are chained into the real state of each block, which
+ * picks the right record end without scanning the block again.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class CsvBoundaries {
+
+  static final byte QUOTE = '"';
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  // Parsing states at the beginning of a byte
+  private static final int FIELD_START = 0;
+  private static final int UNQUOTED = 1;
+  private static final int QUOTED = 2;
+  private static final int QUOTED_AFTER_QUOTE = 3;
+  private static final int STATES = 4;
+
+  // Classes of bytes
+  private static final int OTHER = 0;
+  private static final int QUOTE_BYTE = 1;
+  private static final int DELIMITER = 2;
+  private static final int TERMINATOR = 3;
+
+  /**
+   * The next state of each state and byte class. A terminator ends a record in
+   * every state except {@link #QUOTED}, and the record after it starts from
+   * {@link #FIELD_START}.
+   */
+  private static final int[][] NEXT = {
+      { UNQUOTED, QUOTED, FIELD_START, FIELD_START },
+      { UNQUOTED, UNQUOTED, FIELD_START, FIELD_START },
+      { QUOTED, QUOTED_AFTER_QUOTE, QUOTED, QUOTED },
+      // A quote after a quote is escaped, any other byte closes the field
+      { UNQUOTED, QUOTED, FIELD_START, FIELD_START } };
+
+  private CsvBoundaries() {}
+
+  /**
+   * Finds out the record boundaries of a {@link FileChannel} near the
+   * boundaries of the given number of equal byte blocks. If the file ends
+   * inside a quoted field, it is malformed and the state of a block can't be
+   * trusted, so only the beginning of the file is returned.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param start
+   *          the offset of the first record, which is after the byte order
+   *          mark if any
+   * @param size
+   *          the size of the channel
+   * @param partitions
+   *          the number of byte blocks
+   * @param delimiter
+   *          the delimiter of fields
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a complete {@link PartitionPlan} starts from 0
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static PartitionPlan recordPoints(FileChannel channel, long start,
+      long size, int partitions, char delimiter, Executor executor)
+      throws IOException {
+    long length = size - start;
+    int blocks = (int) Math.max(1, Math.min(partitions, length));
+
+    List<CompletableFuture<long[][]>> scans = new ArrayList<>(blocks);
+    for (int k = 0; k < blocks; k++) {
+      long from = start + length * k / blocks;
+      long to = start + length * (k + 1) / blocks;
+      scans.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return scan(channel, from, to, size, (byte) delimiter);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, executor));
+    }
+
+    long[][][] results = new long[blocks][][];
+    int[] states = new int[blocks + 1];
+    states[0] = FIELD_START;
+    for (int k = 0; k < blocks; k++) {
+      results[k] = Futures.join(scans.get(k));
+      states[k + 1] = (int) results[k][0][states[k]];
+    }
+
+    PartitionPlan points = new PartitionPlan();
+    points.add(0L);
+    if (states[blocks] != QUOTED) {
+      long last = 0;
+      for (int k = 1; k < blocks; k++) {
+        long point = -1;
+        int state = states[k];
+        for (int j = k; j < blocks && point < 0; j++) {
+          point = results[j][1][state];
+          state = (int) results[j][0][state];
+        }
+        if (point < 0) break;
+
+        if (point > last && point < size) {
+          points.add(point);
+          last = point;
+        }
+      }
+    }
+    points.complete();
+
+    return points;
+  }
+
+  /**
+   * Scans a block under every state at the beginning of the block.
+   * 
+   * @return an array of the states at the end of the block and an array of the
+   *         first record ends, -1 for a record end which is not found, both
+   *         indexed by the state at the beginning of the block
+   */
+  private static long[][] scan(FileChannel channel, long from, long to,
+      long size, byte delimiter) throws IOException {
+    int[] states = new int[STATES];
+    long[] recordEnds = new long[STATES];
+    for (int s = 0; s < STATES; s++) {
+      states[s] = s;
+      recordEnds[s] = -1;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    long position = from;
+    while (position < to) {
+      buffer.clear();
+      buffer.limit((int) Math.min(BUFFER_SIZE, to - position));
+      int n = channel.read(buffer, position);
+      if (n <= 0) break;
+
+      for (int i = 0; i < n; i++) {
+        byte b = buffer.get(i);
+        int type = b == QUOTE ? QUOTE_BYTE
+            : b == delimiter ? DELIMITER
+                : b == LineBoundaries.LF || b == LineBoundaries.CR ? TERMINATOR
+                    : OTHER;
+        for (int s = 0; s < STATES; s++) {
+          if (type == TERMINATOR && states[s] != QUOTED && recordEnds[s] < 0) {
+            recordEnds[s] = recordEnd(channel, position + i, b, size);
+          }
+          states[s] = NEXT[states[s]][type];
+        }
+      }
+      position += n;
+    }
+
+    long[] ends = new long[STATES];
+    for (int s = 0; s < STATES; s++) {
+      ends[s] = states[s];
+    }
+    return new long[][] { ends, recordEnds };
+  }
+
+  private static long recordEnd(FileChannel channel, long position, byte b,
+      long size) throws IOException {
+    if (b == LineBoundaries.CR && position + 1 < size) {
+      ByteBuffer next = ByteBuffer.allocate(1);
+      if (channel.read(next, position + 1) == 1
+          && next.get(0) == LineBoundaries.LF) {
+        return position + 2;
+      }
+    }
+    return position + 1;
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 
+ * {@link CsvRecord} is a reusable view over the fields of a CSV record. It is
+ * filled by {@link CsvRecordReader#readRecord(CsvRecord)}, and each field is a
+ * {@link LineSlice} over the unquoted bytes of the record, so the content of a
+ * {@link CsvRecord} is only valid until the next read of the same
+ * {@link CsvRecordReader}. Reading records never allocates per field.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class CsvRecord {
+
+  private LineSlice[] fields = new LineSlice[0];
+  private int size;
+  private Charset charset = Charset.defaultCharset();
+
+  void set(ByteBuffer buffer, int[] bounds, int size, Charset charset) {
+    if (size > fields.length) {
+      int length = fields.length;
+      fields = Arrays.copyOf(fields, Math.max(size, length * 2));
+      for (int i = length; i < fields.length; i++) {
+        fields[i] = new LineSlice();
+      }
+    }
+
+    for (int i = 0; i < size; i++) {
+      fields[i].set(buffer, bounds[2 * i], bounds[2 * i + 1] - bounds[2 * i]);
+    }
+    this.size = size;
+    this.charset = charset;
+  }
+
+  /**
+   * Returns the number of fields of this record.
+   * 
+   * @return the number of fields
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the field of the given index. The returned {@link LineSlice} is
+   * reused by the next read.
+   * 
+   * @param index
+   *          the index of a field starting from 0
+   * @return a {@link LineSlice} of the unquoted field
+   */
+  public LineSlice getField(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          "Index: " + index + ", Size: " + size);
+    }
+    return fields[index];
+  }
+
+  /**
+   * Decodes the field of the given index into a String by the {@link Charset}
+   * of the file.
+   * 
+   * @param index
+   *          the index of a field starting from 0
+   * @return a String
+   */
+  public String getString(int index) {
+    return getField(index).toString(charset);
+  }
+
+  /**
+   * Decodes all fields of this record into Strings.
+   * 
+   * @return a list of Strings
+   */
+  public List<String> toList() {
+    List<String> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(getString(i));
+    }
+    return list;
+  }
+
+  @Override
+  public String toString() {
+    return toList().toString();
+  }
+
+}
@@ -0,0 +1,35 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.util.function.BiFunction;
+
+/**
+ * 
+ * {@link CsvRecordFunction} is used by {@link ParallelCsvReader}. The first
+ * input parameter is an integer which represents the number of parts in a
+ * divided file. The input parameter is a {@link CsvRecordReader} which read
+ * all records in a divided file.
+ * 
+ * @author Wei-Ming Wu
+ *
+ * @param <E>
+ *          the type of returning value
+ * 
+ */
+@FunctionalInterface
+public interface CsvRecordFunction<E>
+    extends BiFunction<Integer, CsvRecordReader, E> {}
@@ -0,0 +1,259 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 
+ * {@link CsvRecordReader} reads CSV records of a byte range of a file. A field
+ * which starts with a quote may contain delimiters, line terminators and
+ * escaped quotes ({@code ""}). Records are separated by LF, CR or CRLF, and a
+ * record is read if it starts before the end of the range, so the range must
+ * start at a record boundary.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public class CsvRecordReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final Charset charset;
+  private final int delimiter;
+  private final long end;
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private long bufferPosition;
+  private long position;
+
+  private byte[] bytes = new byte[256];
+  private ByteBuffer bytesBuffer = ByteBuffer.wrap(bytes);
+  private int[] bounds = new int[32];
+
+  private long recordsRead = 0;
+
+  /**
+   * Creates a {@link CsvRecordReader} of comma separated records by given
+   * {@link File} and {@link Charset}.
+   * 
+   * @param file
+   *          which contains records
+   * @param charset
+   *          an ASCII compatible {@link Charset} of the file
+   * @param start
+   *          the offset of a record start
+   * @param end
+   *          the offset where no more record starts
+   */
+  public CsvRecordReader(File file, Charset charset, long start, long end) {
+    this(file, charset, start, end, ',');
+  }
+
+  /**
+   * Creates a {@link CsvRecordReader} by given {@link File}, {@link Charset}
+   * and delimiter. The byte order mark of an UTF-8 file is skipped if the
+   * start is 0.
+   * 
+   * @param file
+   *          which contains records
+   * @param charset
+   *          an ASCII compatible {@link Charset} of the file
+   * @param start
+   *          the offset of a record start
+   * @param end
+   *          the offset where no more record starts
+   * @param delimiter
+   *          an ASCII character which separates fields
+   */
+  public CsvRecordReader(File file, Charset charset, long start, long end,
+      char delimiter) {
+    LineBoundaries.checkCharset(charset);
+    checkDelimiter(delimiter);
+
+    try {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      position = LineBoundaries.skipBom(channel, start, charset);
+      this.end = Math.min(end, channel.size());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    this.charset = charset;
+    this.delimiter = delimiter;
+    bufferPosition = position;
+    buffer.limit(0);
+  }
+
+  static void checkDelimiter(char delimiter) {
+    if (delimiter >= 0x80 || delimiter == CsvBoundaries.QUOTE
+        || delimiter == LineBoundaries.LF || delimiter == LineBoundaries.CR) {
+      throw new IllegalArgumentException(
+          "Delimiter must be an ASCII character other than quote and line "
+              + "terminators");
+    }
+  }
+
+  /**
+   * Returns true if there is a next record existed.
+   * 
+   * @return true if there is a next record to be read, false otherwise
+   */
+  public boolean hasNext() {
+    return position < end;
+  }
+
+  /**
+   * Reads a record into the given {@link CsvRecord}. The content of the record
+   * is only valid until the next read.
+   * 
+   * @param record
+   *          a caller-owned {@link CsvRecord} to be filled
+   * @return true if a record is read, false if no more record
+   * @throws IOException
+   *           if an I/O Exception happened during reading
+   */
+  public boolean readRecord(CsvRecord record) throws IOException {
+    if (!hasNext()) return false;
+
+    int length = 0;
+    int fields = 0;
+    int fieldStart = 0;
+    boolean quoted = false;
+    boolean atFieldStart = true;
+
+    while (true) {
+      int b = read();
+      if (b < 0) break;
+
+      if (quoted) {
+        if (b == CsvBoundaries.QUOTE) {
+          int next = read();
+          if (next != CsvBoundaries.QUOTE) {
+            quoted = false;
+            if (next >= 0) position--;
+            continue;
+          }
+        }
+        length = append(length, b);
+      } else if (b == delimiter) {
+        fields = bound(fields, fieldStart, length);
+        fieldStart = length;
+        atFieldStart = true;
+      } else if (b == LineBoundaries.LF) {
+        break;
+      } else if (b == LineBoundaries.CR) {
+        int next = read();
+        if (next >= 0 && next != LineBoundaries.LF) position--;
+        break;
+      } else if (b == CsvBoundaries.QUOTE && atFieldStart) {
+        quoted = true;
+        atFieldStart = false;
+      } else {
+        atFieldStart = false;
+        length = append(length, b);
+      }
+    }
+    fields = bound(fields, fieldStart, length);
+
+    record.set(bytesBuffer, bounds, fields, charset);
+    recordsRead++;
+    return true;
+  }
+
+  /**
+   * Reads a record into the given {@link CsvRecord} and turns any exception
+   * into a {@link RuntimeException}.
+   * 
+   * @param record
+   *          a caller-owned {@link CsvRecord} to be filled
+   * @return true if a record is read, false if no more record
+   */
+  public boolean readRecordQuietly(CsvRecord record) {
+    try {
+      return readRecord(record);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the number of records which have been read.
+   * 
+   * @return the number of records read so far
+   */
+  public long getRecordsRead() {
+    return recordsRead;
+  }
+
+  private int read() throws IOException {
+    int index = (int) (position - bufferPosition);
+    if (index >= buffer.limit()) {
+      buffer.clear();
+      bufferPosition = position;
+      if (channel.read(buffer, position) <= 0) {
+        buffer.limit(0);
+        return -1;
+      }
+      buffer.flip();
+      index = 0;
+    }
+
+    position++;
+    return buffer.get(index) & 0xFF;
+  }
+
+  private int append(int length, int b) {
+    if (length == bytes.length) {
+      bytes = Arrays.copyOf(bytes, length * 2);
+      bytesBuffer = ByteBuffer.wrap(bytes);
+    }
+    bytes[length] = (byte) b;
+    return length + 1;
+  }
+
+  private int bound(int fields, int start, int stop) {
+    if (2 * fields + 1 >= bounds.length) {
+      bounds = Arrays.copyOf(bounds, bounds.length * 2);
+    }
+    bounds[2 * fields] = start;
+    bounds[2 * fields + 1] = stop;
+    return fields + 1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Closes this reader and suppresses any exception.
+   */
+  public void closeQuietly() {
+    try {
+      channel.close();
+    } catch (IOException e) {}
+  }
+
+}
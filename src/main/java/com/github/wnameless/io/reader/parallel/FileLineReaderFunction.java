@@ -0,0 +1,50 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.nio.file.Path;
+
+/**
+ * 
+ * {@link FileLineReaderFunction} is used to read many files parallelly. The
+ * first input parameter is the {@link Path} of the file which a part belongs
+ * to. The second input parameter is an integer which represents the number of
+ * parts in the file. The last input parameter is a {@link LineReader} which
+ * read all lines in the part.
+ * 
+ * @author Wei-Ming Wu
+ *
+ * @param <E>
+ *          the type of returning value
+ * 
+ */
+@FunctionalInterface
+public interface FileLineReaderFunction<E> {
+
+  /**
+   * Processes a part of a file.
+   * 
+   * @param file
+   *          the {@link Path} of the file
+   * @param part
+   *          the index of the part in the file starting from 0
+   * @param lineReader
+   *          a {@link LineReader} of the part
+   * @return the result of the part
+   */
+  E apply(Path file, int part, LineReader lineReader);
+
+}
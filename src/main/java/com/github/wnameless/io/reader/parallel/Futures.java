@@ -0,0 +1,59 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 
+ * {@link Futures} is an utility class for the {@link CompletableFuture}s of
+ * scanning tasks, which wrap their {@link IOException}s into
+ * {@link UncheckedIOException}s.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class Futures {
+
+  private Futures() {}
+
+  /**
+   * Waits for the result of a {@link CompletableFuture} and rethrows the
+   * {@link IOException} wrapped by the task as it is.
+   * 
+   * @param <T>
+   *          the type of the result
+   * @param future
+   *          a {@link CompletableFuture}
+   * @return the result of the future
+   * @throws IOException
+   *           if the task failed by an {@link UncheckedIOException}
+   */
+  static <T> T join(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
+    }
+  }
+
+}
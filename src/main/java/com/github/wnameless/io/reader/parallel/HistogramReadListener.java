@@ -0,0 +1,269 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 
+ * {@link HistogramReadListener} is a lightweight in-memory
+ * {@link ReadListener}. It keeps histograms of the queue time, run time, bytes
+ * and lines of parts, and remembers the slowest part, so skew and stragglers of
+ * a parallel reading can be found out. It can be shared by multiple readings.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class HistogramReadListener implements ReadListener {
+
+  private final Histogram scanNanos = new Histogram();
+  private final Histogram queueNanos = new Histogram();
+  private final Histogram runNanos = new Histogram();
+  private final Histogram bytes = new Histogram();
+  private final Histogram lines = new Histogram();
+
+  private final LongAdder submitted = new LongAdder();
+  private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+  private int slowestPart = -1;
+  private long slowestNanos = -1;
+
+  @Override
+  public void scanFinished(File file, int partitions, long nanos) {
+    scanNanos.record(nanos);
+  }
+
+  @Override
+  public void partitionSubmitted(int part, long bytes) {
+    submitted.increment();
+  }
+
+  @Override
+  public void partitionStarted(int part, long queueNanos) {
+    this.queueNanos.record(queueNanos);
+  }
+
+  @Override
+  public void partitionFinished(int part, long bytes, long lines,
+      long runNanos) {
+    this.runNanos.record(runNanos);
+    if (bytes >= 0) this.bytes.record(bytes);
+    this.lines.record(lines);
+
+    synchronized (this) {
+      if (runNanos > slowestNanos) {
+        slowestNanos = runNanos;
+        slowestPart = part;
+      }
+    }
+  }
+
+  @Override
+  public void partitionFailed(int part, Throwable error, long runNanos) {
+    this.runNanos.record(runNanos);
+    errors.add(error);
+  }
+
+  /**
+   * Returns the histogram of times spent on searching partition points.
+   * 
+   * @return a {@link Histogram} in nanoseconds
+   */
+  public Histogram getScanNanos() {
+    return scanNanos;
+  }
+
+  /**
+   * Returns the histogram of times which parts waited in executors.
+   * 
+   * @return a {@link Histogram} in nanoseconds
+   */
+  public Histogram getQueueNanos() {
+    return queueNanos;
+  }
+
+  /**
+   * Returns the histogram of times which parts ran on worker threads.
+   * 
+   * @return a {@link Histogram} in nanoseconds
+   */
+  public Histogram getRunNanos() {
+    return runNanos;
+  }
+
+  /**
+   * Returns the histogram of bytes of finished parts whose sizes are known.
+   * 
+   * @return a {@link Histogram} in bytes
+   */
+  public Histogram getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the histogram of lines read by finished parts.
+   * 
+   * @return a {@link Histogram} in lines
+   */
+  public Histogram getLines() {
+    return lines;
+  }
+
+  /**
+   * Returns the number of submitted parts.
+   * 
+   * @return the number of submitted parts
+   */
+  public long getSubmitted() {
+    return submitted.sum();
+  }
+
+  /**
+   * Returns the exceptions of failed parts.
+   * 
+   * @return a list of {@link Throwable}s
+   */
+  public List<Throwable> getErrors() {
+    return errors;
+  }
+
+  /**
+   * Returns the index of the part which ran for the longest time.
+   * 
+   * @return the index of the slowest part, or -1 if no part is finished
+   */
+  public synchronized int getSlowestPart() {
+    return slowestPart;
+  }
+
+  /**
+   * Returns the run time of the part which ran for the longest time.
+   * 
+   * @return the run time of the slowest part in nanoseconds, or -1 if no part
+   *         is finished
+   */
+  public synchronized long getSlowestNanos() {
+    return slowestNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "HistogramReadListener{submitted=" + getSubmitted() + ", errors="
+        + errors.size() + ", scanNanos=" + scanNanos + ", queueNanos="
+        + queueNanos + ", runNanos=" + runNanos + ", bytes=" + bytes
+        + ", lines=" + lines + ", slowestPart=" + getSlowestPart()
+        + ", slowestNanos=" + getSlowestNanos() + "}";
+  }
+
+  /**
+   * 
+   * {@link Histogram} records non-negative values into buckets of powers of
+   * 2, so it takes a fixed small memory and records a value without locking.
+   * Percentiles are estimated by the upper bounds of buckets.
+   *
+   */
+  public static final class Histogram {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+      long v = Math.max(0, value);
+      // Bucket i holds values in [2^(i-1), 2^i - 1], and bucket 0 holds 0
+      buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+      count.increment();
+      sum.add(v);
+      max.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * 
+     * @return the number of recorded values
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * Returns the sum of recorded values.
+     * 
+     * @return the sum of recorded values
+     */
+    public long getSum() {
+      return sum.sum();
+    }
+
+    /**
+     * Returns the max of recorded values.
+     * 
+     * @return the max of recorded values, or 0 if nothing is recorded
+     */
+    public long getMax() {
+      return max.get();
+    }
+
+    /**
+     * Returns the mean of recorded values.
+     * 
+     * @return the mean of recorded values, or 0 if nothing is recorded
+     */
+    public double getMean() {
+      long n = getCount();
+      return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * Estimates the value at the given percentile.
+     * 
+     * @param percentile
+     *          a percentile between 0 and 100
+     * @return an upper bound of the value at the percentile, which never
+     *         exceeds the max
+     */
+    public long getPercentile(double percentile) {
+      long n = getCount();
+      if (n == 0) return 0;
+
+      long rank = (long) Math.ceil(n * Math.min(100, percentile) / 100);
+      long seen = 0;
+      for (int i = 0; i < buckets.length(); i++) {
+        seen += buckets.get(i);
+        if (seen >= Math.max(1, rank)) {
+          long upper = i == 0 ? 0 : i == 63 ? Long.MAX_VALUE : (1L << i) - 1;
+          return Math.min(upper, getMax());
+        }
+      }
+      return getMax();
+    }
+
+    @Override
+    public String toString() {
+      return "{count=" + getCount() + ", mean=" + (long) getMean() + ", p50="
+          + getPercentile(50) + ", p99=" + getPercentile(99) + ", max="
+          + getMax() + "}";
+    }
+
+  }
+
+}
@@ -0,0 +1,280 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 
+ * {@link IncrementalLineReader} reads a growing file, such as a log file,
+ * parallelly and incrementally. It remembers the committed byte offset and
+ * line number, and each read only divides and processes the lines appended
+ * since the last read. A trailing line without a terminator is left for the
+ * next read until it is completed. If the file is replaced, detected by a
+ * different file key (the inode on most file systems), or truncated below the
+ * committed offset, it is read again from the beginning.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public class IncrementalLineReader {
+
+  private static final int TAIL_BUFFER_SIZE = 8192;
+
+  private final File file;
+  private final Charset charset;
+  private final int maxLines;
+
+  private final Executor executor;
+
+  private long offset;
+  private long lineCount;
+  private Object fileKey;
+
+  /**
+   * Creates an {@link IncrementalLineReader} by given {@link File},
+   * {@link Charset} and {@link Executor}, which resumes from a committed byte
+   * offset and line number of a previous run.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param executor
+   *          a Java {@link Executor}
+   * @param offset
+   *          the committed byte offset, which must be a line start
+   * @param lineCount
+   *          the number of lines before the committed offset
+   */
+  public IncrementalLineReader(int maxLines, File file, Charset charset,
+      Executor executor, long offset, long lineCount) {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    if (offset < 0 || lineCount < 0) {
+      throw new IllegalArgumentException(
+          "Offset and line count must not be negative");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    this.file = file;
+    this.charset = charset;
+    this.maxLines = maxLines;
+    this.executor = executor;
+    this.offset = offset;
+    this.lineCount = lineCount;
+  }
+
+  /**
+   * Creates an {@link IncrementalLineReader} by given {@link File},
+   * {@link Charset} and {@link Executor}, which starts from the beginning of
+   * the file.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param executor
+   *          a Java {@link Executor}
+   */
+  public IncrementalLineReader(int maxLines, File file, Charset charset,
+      Executor executor) {
+    this(maxLines, file, charset, executor, 0, 0);
+  }
+
+  /**
+   * Creates an {@link IncrementalLineReader} by given {@link File} and
+   * {@link Charset}, which starts from the beginning of the file.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   */
+  public IncrementalLineReader(int maxLines, File file, Charset charset) {
+    this(maxLines, file, charset, null);
+  }
+
+  /**
+   * Returns the committed byte offset, which is the start of the next line to
+   * be read.
+   * 
+   * @return the committed byte offset
+   */
+  public synchronized long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Returns the number of lines before the committed offset.
+   * 
+   * @return the committed line count
+   */
+  public synchronized long getLineCount() {
+    return lineCount;
+  }
+
+  /**
+   * Divides the complete lines appended since the last read into smaller
+   * parts, creates {@link CompletableFuture}s for each part, and commits the
+   * end of the last complete line. A part is handed out only once even if its
+   * {@link CompletableFuture} fails.
+   * 
+   * @param <E>
+   *          the result type of each {@link CompletableFuture}
+   * @param lineReaderFunction
+   *          a function to process each part of the new content which is read
+   *          by a {@link LineReader}
+   * @return a list of {@link CompletableFuture}s, empty if no new line
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public synchronized <E> List<CompletableFuture<E>> readNewLines(
+      LineReaderFunction<E> lineReaderFunction) throws IOException {
+    BasicFileAttributes attrs =
+        Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    Object key = attrs.fileKey();
+    if ((fileKey != null && key != null && !fileKey.equals(key))
+        || attrs.size() < offset) {
+      offset = 0;
+      lineCount = 0;
+    }
+    fileKey = key;
+
+    PartitionPlan points = new PartitionPlan();
+    long limit;
+    long[] lines = new long[1];
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      limit = lastLineEnd(channel, offset, channel.size());
+      if (limit > offset) {
+        points.add(offset);
+        // Bytes beyond the limit may be read, so the scan stops at the limit
+        LineBoundaries.scanLineEnds(channel, offset, limit, lineEnd -> {
+          if (lineEnd > limit) return false;
+          if (++lines[0] % maxLines == 0 && lineEnd < limit) {
+            points.add(lineEnd);
+          }
+          return lineEnd < limit;
+        });
+      }
+    }
+    points.complete();
+
+    Executor exec = executor == null ? ForkJoinPool.commonPool() : executor;
+    List<CompletableFuture<E>> futures = new ArrayList<>(points.size());
+    for (int i = 0; i < points.size(); i++) {
+      int part = i;
+      long start = points.get(i);
+      long end = i + 1 < points.size() ? points.get(i + 1) : limit;
+      futures.add(CompletableFuture.supplyAsync(
+          () -> lineReaderFunction.apply(part,
+              LineReaders.toRangeLineReader(file, charset, start, end)),
+          exec));
+    }
+
+    if (limit > offset) offset = limit;
+    lineCount += lines[0];
+    return futures;
+  }
+
+  /**
+   * Polls the file by {@link #readNewLines(LineReaderFunction)} with a fixed
+   * delay and passes the {@link CompletableFuture}s of each poll which finds
+   * new lines to the consumer. Polling stops when the returned
+   * {@link ScheduledFuture} is cancelled or an I/O Exception happens, which
+   * fails the {@link ScheduledFuture} with an {@link UncheckedIOException}.
+   * 
+   * @param <E>
+   *          the result type of each {@link CompletableFuture}
+   * @param scheduler
+   *          a {@link ScheduledExecutorService} to poll the file
+   * @param delay
+   *          the delay between the end of a poll and the start of the next
+   * @param unit
+   *          the {@link TimeUnit} of the delay
+   * @param lineReaderFunction
+   *          a function to process each part of the new content which is read
+   *          by a {@link LineReader}
+   * @param consumer
+   *          a {@link Consumer} of the {@link CompletableFuture}s of a poll
+   * @return a {@link ScheduledFuture} to stop polling
+   */
+  public <E> ScheduledFuture<?> follow(ScheduledExecutorService scheduler,
+      long delay, TimeUnit unit, LineReaderFunction<E> lineReaderFunction,
+      Consumer<? super List<CompletableFuture<E>>> consumer) {
+    return scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        List<CompletableFuture<E>> futures = readNewLines(lineReaderFunction);
+        if (!futures.isEmpty()) consumer.accept(futures);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, 0, delay, unit);
+  }
+
+  /**
+   * Finds the end of the last complete line after the given position. A CR at
+   * the end of the channel is not complete yet, because an LF may follow.
+   */
+  private static long lastLineEnd(FileChannel channel, long position,
+      long size) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(TAIL_BUFFER_SIZE);
+    long stop = size;
+    while (stop > position) {
+      long start = Math.max(position, stop - TAIL_BUFFER_SIZE);
+      buf.clear();
+      buf.limit((int) (stop - start));
+      int n = channel.read(buf, start);
+      if (n <= 0) break;
+
+      for (int i = n - 1; i >= 0; i--) {
+        byte b = buf.get(i);
+        if (b == LineBoundaries.LF
+            || (b == LineBoundaries.CR && start + i + 1 < size)) {
+          return start + i + 1;
+        }
+      }
+      stop = start;
+    }
+    return position;
+  }
+
+}
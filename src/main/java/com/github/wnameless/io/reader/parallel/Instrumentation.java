@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.util.function.Supplier;
+
+/**
+ * 
+ * {@link Instrumentation} reports the lifecycle of parts to a
+ * {@link ReadListener}. Nothing is measured for {@link ReadListener#NOOP}.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class Instrumentation {
+
+  private Instrumentation() {}
+
+  /**
+   * Creates the task of a part which reports its submission, start, finish or
+   * failure to the {@link ReadListener}. The submission is reported right away,
+   * so this method should be called when the task is submitted.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param listener
+   *          a {@link ReadListener}
+   * @param part
+   *          the index of the part
+   * @param bytes
+   *          the number of bytes of the part, or -1 if unknown
+   * @param lineReader
+   *          a {@link Supplier} to open the {@link LineReader} of the part
+   * @param lineReaderFunction
+   *          a function to process the part
+   * @return a task of the part
+   */
+  static <E> Supplier<E> task(ReadListener listener, int part, long bytes,
+      Supplier<LineReader> lineReader,
+      LineReaderFunction<E> lineReaderFunction) {
+    if (listener == ReadListener.NOOP) {
+      return () -> lineReaderFunction.apply(part, lineReader.get());
+    }
+
+    listener.partitionSubmitted(part, bytes);
+    long submitted = System.nanoTime();
+    return () -> {
+      long started = System.nanoTime();
+      listener.partitionStarted(part, started - submitted);
+
+      try {
+        LineReader lr = lineReader.get();
+        E result = lineReaderFunction.apply(part, lr);
+        listener.partitionFinished(part, bytes, lr.getLinesRead(),
+            System.nanoTime() - started);
+        return result;
+      } catch (RuntimeException | Error e) {
+        listener.partitionFailed(part, e, System.nanoTime() - started);
+        throw e;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,194 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * {@link IoExecutors} is an utility class. It provides {@link ExecutorService}s
+ * which are suitable for blocking file I/O, so reading parts of a file does not
+ * tie up the threads of {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class IoExecutors {
+
+  /**
+   * The default number of parts which can be read at the same time.
+   */
+  public static final int DEFAULT_PERMITS =
+      Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+  private static final Method NEW_VIRTUAL_THREAD_EXECUTOR =
+      findVirtualThreadExecutorFactory();
+
+  private IoExecutors() {}
+
+  /**
+   * Checks if the running JVM supports virtual threads.
+   * 
+   * @return true if virtual threads are supported, false otherwise
+   */
+  public static boolean isVirtualThreadSupported() {
+    return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+  }
+
+  /**
+   * Creates an I/O {@link ExecutorService} with {@link #DEFAULT_PERMITS}.
+   * 
+   * @return an {@link ExecutorService}
+   * @see #newIoExecutor(int)
+   */
+  public static ExecutorService newIoExecutor() {
+    return newIoExecutor(DEFAULT_PERMITS);
+  }
+
+  /**
+   * Creates an I/O {@link ExecutorService} which runs at most the given number
+   * of tasks at the same time. Each task runs on its own virtual thread if the
+   * running JVM supports virtual threads, otherwise tasks run on a dedicated
+   * pool of daemon threads. Idle pool threads are stopped automatically, so the
+   * returned {@link ExecutorService} does not need to be shut down.
+   * 
+   * @param permits
+   *          the max number of tasks which can run at the same time
+   * @return an {@link ExecutorService}
+   */
+  public static ExecutorService newIoExecutor(int permits) {
+    if (permits < 1) {
+      throw new IllegalArgumentException("Permits must be positive");
+    }
+
+    ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+    if (virtualThreadExecutor != null) {
+      return new PermitExecutorService(virtualThreadExecutor, permits);
+    }
+
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(permits, permits, 60L,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new IoThreadFactory());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  private static Method findVirtualThreadExecutorFactory() {
+    try {
+      Method method =
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      // Virtual threads are a preview feature before Java 21
+      ((ExecutorService) method.invoke(null)).shutdown();
+      return method;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static ExecutorService newVirtualThreadExecutor() {
+    if (NEW_VIRTUAL_THREAD_EXECUTOR == null) return null;
+
+    try {
+      return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  private static final class IoThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final String prefix = "parallel-line-reader-io-"
+        + POOL_NUMBER.incrementAndGet() + "-";
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread =
+          new Thread(runnable, prefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+  /**
+   * Caps the number of running tasks of an unbounded {@link ExecutorService}.
+   * A task waits for a permit on its own thread, which is cheap for virtual
+   * threads.
+   */
+  private static final class PermitExecutorService
+      extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    PermitExecutorService(ExecutorService delegate, int permits) {
+      this.delegate = delegate;
+      this.permits = new Semaphore(permits);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      delegate.execute(() -> {
+        permits.acquireUninterruptibly();
+        try {
+          command.run();
+        } finally {
+          permits.release();
+        }
+      });
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+
+  }
+
+}
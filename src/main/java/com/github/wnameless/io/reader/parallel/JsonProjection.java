@@ -0,0 +1,247 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 
+ * {@link JsonProjection} finds the values of the given top-level keys of a
+ * JSON object in the raw bytes of a line, which is typically a line of a JSON
+ * Lines (NDJSON) file. Only the requested values are pointed to by
+ * {@link LineSlice}s, the rest of the object is skipped without being decoded,
+ * so nothing is allocated during the projection. Keys are compared with the
+ * raw UTF-8 bytes of the line, so an escaped key in the line does not match.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class JsonProjection {
+
+  private final List<String> keys;
+  private final byte[][] keyBytes;
+
+  /**
+   * Creates a {@link JsonProjection} of the given keys.
+   * 
+   * @param keys
+   *          the top-level keys to be projected
+   */
+  public JsonProjection(String... keys) {
+    this.keys = Collections.unmodifiableList(Arrays.asList(keys.clone()));
+    keyBytes = new byte[keys.length][];
+    for (int i = 0; i < keys.length; i++) {
+      keyBytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Returns the projected keys.
+   * 
+   * @return an unmodifiable list of keys
+   */
+  public List<String> getKeys() {
+    return keys;
+  }
+
+  /**
+   * Creates an array of {@link LineSlice}s which can hold the values of all
+   * keys.
+   * 
+   * @return an array of {@link LineSlice}s
+   */
+  public LineSlice[] newValues() {
+    LineSlice[] values = new LineSlice[keyBytes.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new LineSlice();
+    }
+    return values;
+  }
+
+  /**
+   * Points each value to the raw JSON value of the key of the same index, for
+   * example {@code "text"}, {@code 12}, {@code null} or {@code [1,2]}. A value
+   * whose key is not found is empty. If a key appears more than once, the
+   * first one is used.
+   * 
+   * @param line
+   *          a {@link LineSlice} of a JSON object
+   * @param values
+   *          an array of {@link LineSlice}s created by {@link #newValues()}
+   * @return the number of found keys, or -1 if the line is not a valid JSON
+   *         object
+   */
+  public int project(LineSlice line, LineSlice[] values) {
+    if (values.length < keyBytes.length) {
+      throw new IllegalArgumentException("Values must be as many as keys");
+    }
+    for (int k = 0; k < keyBytes.length; k++) {
+      values[k].set(null, 0, 0);
+    }
+
+    ByteBuffer buffer = line.getBuffer();
+    int end = line.getOffset() + line.getLength();
+    int i = skipWhitespace(buffer, line.getOffset(), end);
+    if (i >= end || buffer.get(i) != '{') return -1;
+
+    int found = 0;
+    i = skipWhitespace(buffer, i + 1, end);
+    if (i < end && buffer.get(i) == '}') return found;
+
+    while (i < end) {
+      if (buffer.get(i) != '"') return -1;
+      int keyEnd = skipString(buffer, i, end);
+      if (keyEnd < 0) return -1;
+      int k = match(buffer, i + 1, keyEnd - 1);
+
+      i = skipWhitespace(buffer, keyEnd, end);
+      if (i >= end || buffer.get(i) != ':') return -1;
+      i = skipWhitespace(buffer, i + 1, end);
+
+      int valueStart = i;
+      i = skipValue(buffer, i, end);
+      if (i < 0) return -1;
+      if (k >= 0 && values[k].getLength() == 0) {
+        values[k].set(buffer, valueStart, i - valueStart);
+        if (++found == keyBytes.length) return found;
+      }
+
+      i = skipWhitespace(buffer, i, end);
+      if (i >= end) return -1;
+      byte b = buffer.get(i);
+      if (b == '}') return found;
+      if (b != ',') return -1;
+      i = skipWhitespace(buffer, i + 1, end);
+    }
+
+    return -1;
+  }
+
+  /**
+   * Creates a {@link Supplier} of {@link LineDecoder}s which project each line
+   * and map the values by the given function. Each decoder owns its values,
+   * and a line which is not a valid JSON object is skipped.
+   * 
+   * @param <T>
+   *          the type of decoded values
+   * @param mapper
+   *          a function to turn the projected values into a decoded value
+   * @return a {@link Supplier} of {@link LineDecoder}s
+   */
+  public <T> Supplier<LineDecoder<T>> decoders(
+      Function<? super LineSlice[], ? extends T> mapper) {
+    return () -> {
+      LineSlice[] values = newValues();
+      return line -> project(line, values) < 0 ? null : mapper.apply(values);
+    };
+  }
+
+  /**
+   * Points the target {@link LineSlice} to the content of a JSON string value
+   * without the quotes. Escape sequences are kept as they are.
+   * 
+   * @param value
+   *          a raw JSON value
+   * @param target
+   *          a {@link LineSlice} to be filled
+   * @return true if the value is a string, false otherwise
+   */
+  public static boolean unquote(LineSlice value, LineSlice target) {
+    int length = value.getLength();
+    if (length < 2 || value.byteAt(0) != '"'
+        || value.byteAt(length - 1) != '"') {
+      return false;
+    }
+
+    target.set(value.getBuffer(), value.getOffset() + 1, length - 2);
+    return true;
+  }
+
+  private int match(ByteBuffer buffer, int from, int to) {
+    outer: for (int k = 0; k < keyBytes.length; k++) {
+      byte[] key = keyBytes[k];
+      if (key.length != to - from) continue;
+      for (int j = 0; j < key.length; j++) {
+        if (buffer.get(from + j) != key[j]) continue outer;
+      }
+      return k;
+    }
+    return -1;
+  }
+
+  private static int skipWhitespace(ByteBuffer buffer, int i, int end) {
+    while (i < end) {
+      byte b = buffer.get(i);
+      if (b != ' ' && b != '\t' && b != '\n' && b != '\r') break;
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipString(ByteBuffer buffer, int i, int end) {
+    for (int j = i + 1; j < end; j++) {
+      byte b = buffer.get(j);
+      if (b == '\\') {
+        j++;
+      } else if (b == '"') {
+        return j + 1;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipValue(ByteBuffer buffer, int i, int end) {
+    if (i >= end) return -1;
+
+    byte first = buffer.get(i);
+    if (first == '"') return skipString(buffer, i, end);
+
+    if (first == '{' || first == '[') {
+      int depth = 0;
+      for (int j = i; j < end; j++) {
+        byte b = buffer.get(j);
+        if (b == '"') {
+          j = skipString(buffer, j, end);
+          if (j < 0) return -1;
+          j--;
+        } else if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          if (--depth == 0) return j + 1;
+        }
+      }
+      return -1;
+    }
+
+    int j = i;
+    while (j < end) {
+      byte b = buffer.get(j);
+      if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t'
+          || b == '\n' || b == '\r') {
+        break;
+      }
+      j++;
+    }
+    return j == i ? -1 : j;
+  }
+
+}
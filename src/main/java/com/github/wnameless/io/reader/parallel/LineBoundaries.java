@@ -0,0 +1,405 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * 
+ * {@link LineBoundaries} locates line boundaries directly on the bytes of a
+ * {@link FileChannel}. A line is terminated by a LF, a CR or a CRLF, which is
+ * the same rule used by {@link java.io.BufferedReader#readLine()}.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class LineBoundaries {
+
+  static final byte LF = '\n';
+  static final byte CR = '\r';
+
+  private static final int SCAN_BUFFER_SIZE = 8192;
+  private static final int COUNT_BUFFER_SIZE = 1 << 16;
+
+  private static final byte[] TERMINATORS = new byte[] { LF, CR };
+  static final byte[] UTF8_BOM =
+      new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+  private LineBoundaries() {}
+
+  /**
+   * Finds the first line start which is greater than or equal to the given
+   * position.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param position
+   *          a byte offset
+   * @param size
+   *          the size of the channel
+   * @return the byte offset of a line start or the size if no more line
+   *         existed
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static long nextLineStart(FileChannel channel, long position, long size)
+      throws IOException {
+    if (position <= 0) return 0;
+    if (position >= size) return size;
+
+    ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    // The byte right before the position decides if the position is already
+    // a line start, so the reading starts one byte earlier
+    long bufStart = position - 1;
+
+    while (bufStart < size) {
+      buf.clear();
+      int n = channel.read(buf, bufStart);
+      if (n <= 0) break;
+
+      int i = NewlineScanner.indexOfTerminator(buf, 0, n);
+      if (i >= 0) {
+        if (buf.get(i) == LF) return bufStart + i + 1;
+        if (i + 1 < n) {
+          return buf.get(i + 1) == LF ? bufStart + i + 2 : bufStart + i + 1;
+        }
+
+        // A CR at the end of the buffer
+        long next = bufStart + i + 1;
+        if (next >= size) return size;
+        buf.clear();
+        buf.limit(1);
+        if (channel.read(buf, next) <= 0) return next;
+        return buf.get(0) == LF ? next + 1 : next;
+      }
+
+      bufStart += n;
+    }
+
+    return size;
+  }
+
+  /**
+   * Divides a {@link FileChannel} into byte ranges of the given chunk size and
+   * moves every boundary forward to the next line start.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param size
+   *          the size of the channel
+   * @param chunkSize
+   *          the targeted bytes of each range
+   * @return a list of starting offsets of each range
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static List<Long> rangePoints(FileChannel channel, long size, long chunkSize)
+      throws IOException {
+    List<Long> points = new ArrayList<>();
+    points.add(0L);
+
+    long last = 0;
+    for (long p = chunkSize; p < size; p += chunkSize) {
+      if (p <= last) continue;
+
+      long point = nextLineStart(channel, p, size);
+      if (point >= size) break;
+
+      points.add(point);
+      last = point;
+    }
+
+    return points;
+  }
+
+  /**
+   * Returns true if line terminators of the given {@link Charset} are single
+   * bytes which are the same as ASCII, so line boundaries can be found on raw
+   * bytes.
+   * 
+   * @param charset
+   *          a {@link Charset}
+   * @return true if line terminators are encoded as single ASCII bytes
+   */
+  static boolean isByteTerminated(Charset charset) {
+    return charset.canEncode()
+        && Arrays.equals(TERMINATORS, "\n\r".getBytes(charset));
+  }
+
+  /**
+   * Checks if line terminators of the given {@link Charset} are single bytes
+   * which are the same as ASCII, so line boundaries can be found on raw bytes.
+   * 
+   * @param charset
+   *          a {@link Charset}
+   * @throws IllegalArgumentException
+   *           if line terminators are not encoded as single ASCII bytes
+   */
+  static void checkCharset(Charset charset) {
+    if (!isByteTerminated(charset)) {
+      throw new IllegalArgumentException("Charset " + charset
+          + " does not encode line terminators as single ASCII bytes");
+    }
+  }
+
+  /**
+   * Skips the byte order mark at the beginning of an UTF-8 file.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param position
+   *          a byte offset
+   * @param charset
+   *          the {@link Charset} of the file
+   * @return the position after the byte order mark or the given position if
+   *         no byte order mark is skipped
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static long skipBom(FileChannel channel, long position, Charset charset)
+      throws IOException {
+    if (position != 0 || !StandardCharsets.UTF_8.equals(charset)) {
+      return position;
+    }
+
+    ByteBuffer buf = ByteBuffer.allocate(UTF8_BOM.length);
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, buf.position()) <= 0) return position;
+    }
+    return Arrays.equals(UTF8_BOM, buf.array()) ? UTF8_BOM.length : position;
+  }
+
+  /**
+   * 
+   * {@link LineEndVisitor} receives the end offset of each line, which is also
+   * the start offset of the next line.
+   *
+   */
+  @FunctionalInterface
+  interface LineEndVisitor {
+
+    /**
+     * Visits the end of a line.
+     * 
+     * @param lineEnd
+     *          the byte offset right after the line terminator
+     * @return true to continue scanning, false to stop
+     */
+    boolean visit(long lineEnd);
+
+  }
+
+  /**
+   * Scans line terminators on raw bytes from the given position, which must be
+   * a line start, and visits the end of each line. A last line without a
+   * terminator ends at the end of the channel.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param position
+   *          the byte offset of a line start
+   * @param size
+   *          the size of the channel
+   * @param visitor
+   *          a {@link LineEndVisitor}
+   * @return the end of the last visited line
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static long scanLineEnds(FileChannel channel, long position, long size,
+      LineEndVisitor visitor) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(COUNT_BUFFER_SIZE);
+    long bufStart = position;
+    long lineStart = position;
+    boolean afterCR = false;
+
+    while (bufStart < size) {
+      buf.clear();
+      int n = channel.read(buf, bufStart);
+      if (n <= 0) break;
+
+      int i = 0;
+      if (afterCR) {
+        afterCR = false;
+        if (buf.get(0) == LF) i = 1;
+      }
+
+      while ((i = NewlineScanner.indexOfTerminator(buf, i, n)) >= 0) {
+        long lineEnd = bufStart + i + 1;
+        if (buf.get(i) == CR) {
+          // CRLF is treated as a single terminator, so the line ends after
+          // the LF if there is one
+          if (i + 1 < n) {
+            if (buf.get(i + 1) == LF) {
+              lineEnd++;
+              i++;
+            }
+          } else if (lineEnd < size) {
+            lineEnd = nextLineStart(channel, lineEnd, size);
+            afterCR = true;
+          }
+        }
+
+        lineStart = lineEnd;
+        if (!visitor.visit(lineEnd)) return lineEnd;
+        i++;
+      }
+      bufStart += n;
+    }
+
+    long stop = Math.min(bufStart, size);
+    if (lineStart < stop) {
+      visitor.visit(stop);
+      return stop;
+    }
+    return lineStart;
+  }
+
+  /**
+   * Skips the given number of lines from a line start.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param position
+   *          the byte offset of a line start
+   * @param lines
+   *          the number of lines to skip
+   * @param size
+   *          the size of the channel
+   * @return the byte offset after skipped lines or the size if no more line
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static long skipLines(FileChannel channel, long position, long lines,
+      long size) throws IOException {
+    if (lines <= 0) return position;
+
+    long[] count = new long[1];
+    return scanLineEnds(channel, position, size,
+        lineEnd -> ++count[0] < lines);
+  }
+
+  /**
+   * Finds out all partition points of a {@link FileChannel} by counting line
+   * terminators on raw bytes. A point is added after every max number of
+   * lines, including a last line without a terminator.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param size
+   *          the size of the channel
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static List<Long> partitionPoints(FileChannel channel, long size,
+      int maxLines) throws IOException {
+    PartitionPlan plan = new PartitionPlan();
+    partitionPoints(channel, size, maxLines, plan::add);
+    plan.complete();
+    return plan.asList();
+  }
+
+  /**
+   * Passes all partition points of a {@link FileChannel} to a sink as soon as
+   * each of them is found.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param size
+   *          the size of the channel
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param sink
+   *          a {@link LongConsumer} which receives the points in order
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static void partitionPoints(FileChannel channel, long size, int maxLines,
+      LongConsumer sink) throws IOException {
+    sink.accept(0L);
+
+    long[] lineNum = new long[1];
+    scanLineEnds(channel, 0, size, lineEnd -> {
+      if (++lineNum[0] % maxLines == 0) sink.accept(lineEnd);
+      return true;
+    });
+  }
+
+  /**
+   * Visits the end of each line whose terminator ends within the byte range
+   * [from, to). A CRLF belongs to the range which contains its LF, so
+   * successive ranges never visit the same line twice. The range can start in
+   * the middle of a line.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param from
+   *          the byte offset to start from, inclusive
+   * @param to
+   *          the byte offset to stop at, exclusive
+   * @param size
+   *          the size of the channel
+   * @param visitor
+   *          a {@link LineEndVisitor}
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static void scanTerminators(FileChannel channel, long from, long to,
+      long size, LineEndVisitor visitor) throws IOException {
+    // One more byte is read to tell a CR from a CRLF at the end of a buffer
+    ByteBuffer buf = ByteBuffer.allocate(COUNT_BUFFER_SIZE + 1);
+    long bufStart = from;
+
+    while (bufStart < to) {
+      buf.clear();
+      buf.limit((int) Math.min(buf.capacity(), size - bufStart));
+      int n = 0;
+      while (buf.hasRemaining()) {
+        int r = channel.read(buf, bufStart + n);
+        if (r <= 0) break;
+        n += r;
+      }
+      if (n <= 0) break;
+      // The file is shrunk during the scan, so the bytes read are the last ones
+      if (buf.hasRemaining()) size = bufStart + n;
+
+      // The extra byte is only for looking ahead unless it is the last byte
+      int stop =
+          (int) Math.min(bufStart + n >= size ? n : n - 1, to - bufStart);
+      if (stop <= 0) break;
+      int i = 0;
+      while ((i = NewlineScanner.indexOfTerminator(buf, i, stop)) >= 0) {
+        if (buf.get(i) == LF || i + 1 >= n || buf.get(i + 1) != LF) {
+          if (!visitor.visit(bufStart + i + 1)) return;
+        }
+        i++;
+      }
+      bufStart += stop;
+    }
+  }
+
+}
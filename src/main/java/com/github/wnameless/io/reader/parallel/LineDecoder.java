@@ -0,0 +1,42 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+/**
+ * 
+ * {@link LineDecoder} decodes the raw bytes of a line into a value. A decoder
+ * is created for each partition, so it may keep reusable state without any
+ * synchronization. The given {@link LineSlice} is only valid during the call.
+ * 
+ * @author Wei-Ming Wu
+ *
+ * @param <T>
+ *          the type of decoded values
+ * 
+ */
+@FunctionalInterface
+public interface LineDecoder<T> {
+
+  /**
+   * Decodes a line.
+   * 
+   * @param line
+   *          a {@link LineSlice} of the raw bytes of a line
+   * @return a decoded value, or null to skip the line
+   */
+  T decode(LineSlice line);
+
+}
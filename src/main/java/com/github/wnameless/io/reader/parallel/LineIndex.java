@@ -0,0 +1,309 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 
+ * {@link LineIndex} records the byte offset of every N-th line of a file in a
+ * primitive array, so any line can be located by jumping to the closest
+ * recorded offset and scanning at most N - 1 lines. An index of every line
+ * costs 8 bytes per line, and a sparse index costs 8 bytes per N lines.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class LineIndex {
+
+  private final File file;
+  private final Charset charset;
+  private final long fileSize;
+  private final int sampleInterval;
+  private final long lineCount;
+  private final long[] lineOffsets;
+
+  LineIndex(File file, Charset charset, long fileSize, int sampleInterval,
+      long lineCount, long[] lineOffsets) {
+    this.file = file;
+    this.charset = charset;
+    this.fileSize = fileSize;
+    this.sampleInterval = sampleInterval;
+    this.lineCount = lineCount;
+    this.lineOffsets = lineOffsets;
+  }
+
+  /**
+   * Builds a {@link LineIndex} parallelly by
+   * {@link ForkJoinPool#commonPool()}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param sampleInterval
+   *          the number of lines between 2 recorded line offsets, 1 to record
+   *          every line
+   * @return a {@link LineIndex}
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   */
+  public static LineIndex build(File file, Charset charset,
+      int sampleInterval) throws IOException {
+    return build(file, charset, sampleInterval, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Builds a {@link LineIndex} parallelly. The file is divided into blocks
+   * whose line terminators are counted parallelly, and then only the blocks
+   * which contain recorded lines are scanned again, see
+   * {@link LineReaders#getPartitionPointsParallelly(File, Charset, int,
+   * Executor)}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param sampleInterval
+   *          the number of lines between 2 recorded line offsets, 1 to record
+   *          every line
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a {@link LineIndex}
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   */
+  public static LineIndex build(File file, Charset charset, int sampleInterval,
+      Executor executor) throws IOException {
+    if (sampleInterval < 1) {
+      throw new IllegalArgumentException("Sample interval must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      List<Long> points = PartitionScanner.partitionPoints(channel, size,
+          sampleInterval, PartitionScanner.DEFAULT_BLOCK_SIZE, executor);
+
+      // Only the last line offset may equal the size, which ends a file whose
+      // line count is a multiple of the sample interval
+      int samples = points.size();
+      if (samples > 1 && points.get(samples - 1) == size) samples--;
+      long[] lineOffsets = new long[samples];
+      for (int i = 0; i < samples; i++) {
+        lineOffsets[i] = points.get(i);
+      }
+
+      long[] tail = new long[1];
+      LineBoundaries.scanLineEnds(channel, lineOffsets[samples - 1], size,
+          lineEnd -> {
+            tail[0]++;
+            return true;
+          });
+
+      return new LineIndex(file, charset, size, sampleInterval,
+          (long) (samples - 1) * sampleInterval + tail[0], lineOffsets);
+    }
+  }
+
+  /**
+   * Returns the indexed file.
+   * 
+   * @return the indexed file
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the number of lines of the indexed file.
+   * 
+   * @return the number of lines
+   */
+  public long getLineCount() {
+    return lineCount;
+  }
+
+  /**
+   * Returns the number of lines between 2 recorded line offsets.
+   * 
+   * @return the sample interval
+   */
+  public int getSampleInterval() {
+    return sampleInterval;
+  }
+
+  long getFileSize() {
+    return fileSize;
+  }
+
+  long[] getLineOffsets() {
+    return lineOffsets;
+  }
+
+  /**
+   * Returns the byte offset where the given line starts. The offset of the
+   * line right after the last one is the size of the file.
+   * 
+   * @param line
+   *          a line number starting from 0
+   * @return the byte offset of the line
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   */
+  public long getLineOffset(long line) throws IOException {
+    if (line < 0 || line > lineCount) {
+      throw new IndexOutOfBoundsException(
+          "Line: " + line + ", Line count: " + lineCount);
+    }
+    if (line == lineCount) return fileSize;
+
+    long offset = lineOffsets[(int) (line / sampleInterval)];
+    long skip = line % sampleInterval;
+    if (skip == 0) return offset;
+
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return LineBoundaries.skipLines(channel, offset, skip, fileSize);
+    }
+  }
+
+  /**
+   * Reads the given line.
+   * 
+   * @param line
+   *          a line number starting from 0
+   * @return the content of the line
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public String readLine(long line) throws IOException {
+    if (line >= lineCount) {
+      throw new IndexOutOfBoundsException(
+          "Line: " + line + ", Line count: " + lineCount);
+    }
+
+    try (LineReader lr = LineReaders.toLineReader(file, charset,
+        getLineOffset(line), 1)) {
+      return lr.readLine();
+    }
+  }
+
+  /**
+   * Creates a {@link LineReader} to read the lines within [from, to).
+   * 
+   * @param from
+   *          the first line number, inclusive
+   * @param to
+   *          the last line number, exclusive
+   * @return a {@link LineReader}
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   */
+  public LineReader range(long from, long to) throws IOException {
+    if (from > to) {
+      throw new IllegalArgumentException("From: " + from + " > To: " + to);
+    }
+
+    return LineReaders.toRangeLineReader(file, charset, getLineOffset(from),
+        getLineOffset(to));
+  }
+
+  /**
+   * Reads the lines within [from, to).
+   * 
+   * @param from
+   *          the first line number, inclusive
+   * @param to
+   *          the last line number, exclusive
+   * @return a list of lines
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public List<String> readLines(long from, long to) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (LineReader lr = range(from, to)) {
+      while (lr.hasNext()) {
+        lines.add(lr.readLine());
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Derives partition points of the indexed file based on the given max line
+   * number. The result is the same as
+   * {@link LineReaders#getPartitionPoints(File, Charset, int)}. If the max
+   * number of lines is a multiple of the sample interval, no byte of the file
+   * is read; otherwise only the lines between recorded offsets and the points
+   * are scanned.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a complete {@link PartitionPlan} starts from 0
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   */
+  public PartitionPlan getPartitionPlan(int maxLines) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+
+    PartitionPlan points = new PartitionPlan();
+    points.add(0L);
+
+    if (maxLines % sampleInterval == 0) {
+      for (long line = maxLines; line <= lineCount; line += maxLines) {
+        int i = (int) (line / sampleInterval);
+        points.add(i < lineOffsets.length ? lineOffsets[i] : fileSize);
+      }
+      points.complete();
+      return points;
+    }
+
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long offset = 0;
+      long line = 0;
+      for (long target = maxLines; target <= lineCount; target += maxLines) {
+        // Jumps to the closest recorded offset if it is ahead
+        long sampled = target / sampleInterval * sampleInterval;
+        if (sampled > line && sampled < lineCount) {
+          offset = lineOffsets[(int) (sampled / sampleInterval)];
+          line = sampled;
+        }
+
+        offset = LineBoundaries.skipLines(channel, offset, target - line,
+            fileSize);
+        line = target;
+        points.add(offset);
+      }
+    }
+    points.complete();
+
+    return points;
+  }
+
+}
@@ -20,8 +20,12 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * 
@@ -33,14 +37,14 @@ import java.io.Reader;
  */
 public class LineReader implements Closeable {
 
-  private final BufferedReader br;
-  private final int maxLines;
+  private final LineSource source;
+  private final long maxLines;
 
-  private int currentLine = 0;
-  private String peek;
+  private long currentLine = 0;
 
   /**
-   * Creates a {@link LineReader} by given {@link File}.
+   * Creates a {@link LineReader} by given {@link File} with the default
+   * {@link Charset}.
    * 
    * @param file
    *          which contains lines
@@ -50,21 +54,76 @@ public class LineReader implements Closeable {
    *          the max number of lines to read
    */
   public LineReader(File file, long position, int maxLines) {
+    this(file, position, maxLines, Charset.defaultCharset());
+  }
+
+  /**
+   * Creates a {@link LineReader} by given {@link File} and {@link Charset}. The
+   * byte order mark of an UTF-8 file is skipped if the position is 0.
+   * 
+   * @param file
+   *          which contains lines
+   * @param position
+   *          bytes to be skipped
+   * @param maxLines
+   *          the max number of lines to read
+   * @param charset
+   *          the {@link Charset} of the file
+   */
+  public LineReader(File file, long position, int maxLines, Charset charset) {
     FileInputStream fis;
     try {
       fis = new FileInputStream(file);
-      fis.getChannel().position(position);
+      FileChannel channel = fis.getChannel();
+      channel.position(LineBoundaries.skipBom(channel, position, charset));
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
 
     this.maxLines = maxLines;
-    br = new BufferedReader(new InputStreamReader(fis));
-    try {
-      peek = br.readLine();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+    source = fileSource(fis, charset);
+  }
+
+  /**
+   * Creates a {@link LineSource} for the bytes of a file starting at a line
+   * start. If the line terminators of the {@link Charset} are single ASCII
+   * bytes, lines are found on the raw bytes and a line read into a
+   * {@link LineSlice} holds the bytes of the file; otherwise the bytes are
+   * decoded by a {@link Reader}.
+   * 
+   * @param in
+   *          an {@link InputStream} of the file
+   * @param charset
+   *          the {@link Charset} of the file
+   * @return a {@link LineSource}
+   */
+  static LineSource fileSource(InputStream in, Charset charset) {
+    if (LineBoundaries.isByteTerminated(charset)) {
+      try {
+        // A line feed as the previous byte means the stream starts a line
+        return new StreamLineSource(in, charset, LineBoundaries.LF,
+            Long.MAX_VALUE);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
     }
+
+    return new ReaderLineSource(
+        new BufferedReader(new InputStreamReader(in, charset)), charset);
+  }
+
+  /**
+   * Creates a {@link LineReader} which reads all lines of given
+   * {@link LineSource} up to the max number of lines.
+   * 
+   * @param source
+   *          which contains lines
+   * @param maxLines
+   *          the max number of lines to read
+   */
+  LineReader(LineSource source, long maxLines) {
+    this.source = source;
+    this.maxLines = maxLines;
   }
 
   /**
@@ -78,14 +137,14 @@ public class LineReader implements Closeable {
    *          the max number of lines to read
    */
   public LineReader(Reader reader, long skip, int maxLines) {
-    br = new BufferedReader(reader);
+    BufferedReader br = new BufferedReader(reader);
     this.maxLines = maxLines;
     try {
       br.skip(skip);
-      peek = br.readLine();
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    source = new ReaderLineSource(br, StandardCharsets.UTF_8);
   }
 
   /**
@@ -94,7 +153,7 @@ public class LineReader implements Closeable {
    * @return true if there is a next line to be read, false otherwise
    */
   public boolean hasNext() {
-    return peek != null;
+    return currentLine < maxLines && source.hasNext();
   }
 
   /**
@@ -105,16 +164,9 @@ public class LineReader implements Closeable {
    *           if an I/O Exception happened during reading
    */
   public String readLine() throws IOException {
-    String line = peek;
-
-    if (line != null && currentLine < maxLines) {
-      currentLine++;
-
-      if (currentLine < maxLines) {
-        peek = br.readLine();
-      } else {
-        peek = null;
-      }
+    if (currentLine < maxLines) {
+      String line = source.readLine();
+      if (line != null) currentLine++;
 
       return line;
     }
@@ -122,6 +174,31 @@ public class LineReader implements Closeable {
     return null;
   }
 
+  /**
+   * Reads a line into the given {@link LineSlice} without creating a String.
+   * For a {@link File} in a {@link Charset} whose line terminators are single
+   * ASCII bytes, the slice holds the bytes of the file without any per line
+   * allocation; a {@link File} read through
+   * {@link LineReaders#toMappedLineReader(File, long, long)} is even pointed to
+   * the mapped bytes directly. Other readers decode each line and encode it
+   * again, by the {@link Charset} of the file or as UTF-8 for a
+   * {@link Reader}. The content of the slice is only valid until the next read.
+   * 
+   * @param slice
+   *          a caller-owned {@link LineSlice} to be filled
+   * @return true if a line is read, false if no more line
+   * @throws IOException
+   *           if an I/O Exception happened during reading
+   */
+  public boolean readLine(LineSlice slice) throws IOException {
+    if (currentLine < maxLines && source.readLine(slice)) {
+      currentLine++;
+      return true;
+    }
+
+    return false;
+  }
+
   /**
    * Reads a line and turns any exception into a {@link RuntimeException}.
    * 
@@ -137,9 +214,34 @@ public class LineReader implements Closeable {
     return line;
   }
 
+  /**
+   * Reads a line into the given {@link LineSlice} and turns any exception into
+   * a {@link RuntimeException}.
+   * 
+   * @param slice
+   *          a caller-owned {@link LineSlice} to be filled
+   * @return true if a line is read, false if no more line
+   */
+  public boolean readLineQuietly(LineSlice slice) {
+    try {
+      return readLine(slice);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the number of lines which have been read.
+   * 
+   * @return the number of lines read so far
+   */
+  public long getLinesRead() {
+    return currentLine;
+  }
+
   @Override
   public void close() throws IOException {
-    br.close();
+    source.close();
   }
 
   /**
@@ -147,7 +249,7 @@ public class LineReader implements Closeable {
    */
   public void closeQuietly() {
     try {
-      br.close();
+      source.close();
     } catch (IOException e) {}
   }
 
@@ -15,15 +15,54 @@
  */
 package com.github.wnameless.io.reader.parallel;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
 
 import net.sf.rubycollect4j.util.WholeLineReader;
 
@@ -114,8 +153,181 @@ public final class LineReaders {
     return futures;
   }
 
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller
+   * parts, and reports the discovery of skip points and the lifecycle of each
+   * part to the {@link ReadListener}. The file of scan events is null and the
+   * bytes of each part are unknown.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param reader
+   *          which contents lines
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param listener
+   *          a {@link ReadListener}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(
+      Supplier<? extends Reader> reader, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor,
+      ReadListener listener) throws IOException {
+    listener.scanStarted(null);
+    long started = System.nanoTime();
+    List<Long> skipPoints = getSkipPoints(reader.get(), maxLines);
+    listener.scanFinished(null, skipPoints.size(), System.nanoTime() - started);
+
+    List<CompletableFuture<E>> futures = new ArrayList<>();
+    for (int i = 0; i < skipPoints.size(); i++) {
+      long skip = skipPoints.get(i);
+      futures.add(CompletableFuture.supplyAsync(
+          Instrumentation.task(listener, i, -1,
+              () -> toLineReader(reader.get(), skip, maxLines),
+              lineReaderFunction),
+          executor));
+    }
+
+    return futures;
+  }
+
+  /**
+   * Reads lines of a {@link Reader} parallelly in a single pass. The
+   * {@link Reader} is read only once by the current thread, and every
+   * {@code maxLines} lines are handed to a worker as a batch. At most twice
+   * the number of available processors batches are pending at the same time,
+   * so the reading is blocked until a worker finishes a batch. It is suitable
+   * for non-seekable sources which are expensive to be read repeatedly.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param reader
+   *          which contents lines
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(Reader reader,
+      int maxLines, LineReaderFunction<E> lineReaderFunction)
+      throws IOException {
+    return readParallelly(reader, maxLines, lineReaderFunction,
+        ForkJoinPool.commonPool(),
+        Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  /**
+   * Reads lines of a {@link Reader} parallelly in a single pass. The
+   * {@link Reader} is read only once by the current thread, and every
+   * {@code maxLines} lines are handed to a worker as a batch. At most twice
+   * the number of available processors batches are pending at the same time,
+   * so the reading is blocked until a worker finishes a batch. It is suitable
+   * for non-seekable sources which are expensive to be read repeatedly.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param reader
+   *          which contents lines
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(Reader reader,
+      int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    return readParallelly(reader, maxLines, lineReaderFunction, executor,
+        Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  /**
+   * Reads lines of a {@link Reader} parallelly in a single pass. The
+   * {@link Reader} is read only once by the current thread, and every
+   * {@code maxLines} lines are handed to a worker as a batch. The reading is
+   * blocked whenever the number of pending batches reaches the given limit.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param reader
+   *          which contents lines
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param maxPendingBatches
+   *          the max number of batches which are submitted but not finished
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(Reader reader,
+      int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Executor executor, int maxPendingBatches) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    if (maxPendingBatches < 1) {
+      throw new IllegalArgumentException(
+          "Max pending batches must be positive");
+    }
+
+    List<CompletableFuture<E>> futures = new ArrayList<>();
+    Semaphore pending = new Semaphore(maxPendingBatches);
+
+    try (BufferedReader br = new BufferedReader(reader)) {
+      String line = br.readLine();
+      while (line != null) {
+        List<String> batch = new ArrayList<>(Math.min(maxLines, 1024));
+        while (line != null && batch.size() < maxLines) {
+          batch.add(line);
+          line = br.readLine();
+        }
+
+        try {
+          pending.acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+
+        int part = futures.size();
+        CompletableFuture<E> future = CompletableFuture.supplyAsync(
+            () -> lineReaderFunction.apply(part,
+                new LineReader(new ListLineSource(batch), Long.MAX_VALUE)),
+            executor);
+        future.whenComplete((r, e) -> pending.release());
+
+        futures.add(future);
+      }
+    }
+
+    return futures;
+  }
+
   /**
    * Reads lines of content parallelly by dividing the input into smaller parts.
+   * The file is read with the default {@link Charset}, and partition points are
+   * found out by {@link #getPartitionPoints(File, int)}.
    * 
    * @param <E>
    *          the type of returning value
@@ -133,32 +345,1404 @@ public final class LineReaders {
   public static <E> List<CompletableFuture<E>> readParallelly(File file,
       int maxLines, LineReaderFunction<E> lineReaderFunction)
       throws IOException {
-    List<CompletableFuture<E>> futures = new ArrayList<>();
+    Charset charset = Charset.defaultCharset();
+    if (LineBoundaries.isByteTerminated(charset)) {
+      return readParallelly(file, charset, maxLines, lineReaderFunction);
+    }
 
-    List<Long> skipPoints = getPartitionPoints(file, maxLines);
+    return readPartitionsParallelly(file, charset,
+        getPartitionPoints(file, maxLines), maxLines, lineReaderFunction,
+        null);
+  }
 
-    for (int i = 0; i < skipPoints.size(); i++) {
-      int ii = i;
-      CompletableFuture<E> future = CompletableFuture.supplyAsync(() -> {
-        return lineReaderFunction.apply(ii,
-            toLineReader(file, skipPoints.get(ii), maxLines));
-      });
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts.
+   * The file is read with the default {@link Charset}, and partition points are
+   * found out by {@link #getPartitionPoints(File, int)}.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(File file,
+      int maxLines, LineReaderFunction<E> lineReaderFunction, Executor executor)
+      throws IOException {
+    Charset charset = Charset.defaultCharset();
+    if (LineBoundaries.isByteTerminated(charset)) {
+      return readParallelly(file, charset, maxLines, lineReaderFunction,
+          executor);
+    }
 
-      futures.add(future);
+    return readPartitionsParallelly(file, charset,
+        getPartitionPoints(file, maxLines), maxLines, lineReaderFunction,
+        executor);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts.
+   * Partition points are found out parallelly by
+   * {@link #getPartitionPointsParallelly(File, Charset, int)}.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(File file,
+      Charset charset, int maxLines, LineReaderFunction<E> lineReaderFunction)
+      throws IOException {
+    return readPartitionsParallelly(file, charset,
+        getPartitionPointsParallelly(file, charset, maxLines), maxLines,
+        lineReaderFunction, null);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts.
+   * Partition points are found out parallelly by
+   * {@link #getPartitionPointsParallelly(File, Charset, int, Executor)}
+   * with the given {@link Executor}.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(File file,
+      Charset charset, int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    return readPartitionsParallelly(file, charset,
+        getPartitionPointsParallelly(file, charset, maxLines, executor),
+        maxLines, lineReaderFunction, executor);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * and reports the discovery of partition points and the lifecycle of each
+   * part to the {@link ReadListener}.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param listener
+   *          a {@link ReadListener}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallelly(File file,
+      Charset charset, int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Executor executor, ReadListener listener) throws IOException {
+    listener.scanStarted(file);
+    long started = System.nanoTime();
+    List<Long> partitionPoints =
+        getPartitionPointsParallelly(file, charset, maxLines, executor);
+    listener.scanFinished(file, partitionPoints.size(),
+        System.nanoTime() - started);
+
+    return readPartitionsParallelly(file, charset, partitionPoints, maxLines,
+        lineReaderFunction, executor, listener);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * and records each finished part in a {@link CheckpointJournal}. If the
+   * journal is left by an unfinished run of the same plan, the parts finished
+   * by that run are skipped and their {@link CompletableFuture}s complete with
+   * null. The journal is deleted after all parts are finished successfully.
+   * A part whose record cannot be written still completes with its result,
+   * but the journal is kept and the part is read again by the next run.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param journalFile
+   *          the file of the {@link CheckpointJournal}, such as
+   *          {@link CheckpointJournal#getJournalFile(File)}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyCheckpointed(
+      File file, Charset charset, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor,
+      File journalFile) throws IOException {
+    return readParallellyCheckpointed(file, charset, maxLines,
+        lineReaderFunction, executor, journalFile, ReadListener.NOOP);
+  }
+
+  static <E> List<CompletableFuture<E>> readParallellyCheckpointed(File file,
+      Charset charset, int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Executor executor, File journalFile, ReadListener listener)
+      throws IOException {
+    CheckpointJournal journal =
+        CheckpointJournal.open(journalFile, file, charset, maxLines);
+    int parts = journal.getPartitionCount();
+    AtomicInteger remaining =
+        new AtomicInteger(parts - journal.getCompletedCount());
+    AtomicBoolean failed = new AtomicBoolean();
+    if (remaining.get() == 0) finishJournal(journal, false);
+
+    List<CompletableFuture<E>> futures = new ArrayList<>(parts);
+    for (int i = 0; i < parts; i++) {
+      if (journal.isCompleted(i)) {
+        futures.add(CompletableFuture.completedFuture(null));
+        continue;
+      }
+
+      int part = i;
+      long position = journal.getStart(i);
+      Supplier<E> task = Instrumentation.task(listener, i,
+          journal.getEnd(i) - position,
+          () -> toLineReader(file, charset, position, maxLines),
+          lineReaderFunction);
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        boolean succeeded = false;
+        try {
+          E result = task.get();
+          succeeded = true;
+          return result;
+        } finally {
+          // A part which is not recorded keeps the journal, so it is read
+          // again by the next run, but its result is still returned
+          if (!succeeded || !completeJournal(journal, part)) failed.set(true);
+          // The last part finishes the journal before its result is visible
+          if (remaining.decrementAndGet() == 0) {
+            finishJournal(journal, failed.get());
+          }
+        }
+      }, executor));
+    }
+
+    return futures;
+  }
+
+  private static boolean completeJournal(CheckpointJournal journal,
+      int part) {
+    try {
+      journal.complete(part);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static void finishJournal(CheckpointJournal journal,
+      boolean failed) {
+    try {
+      if (failed) {
+        journal.close();
+      } else {
+        journal.delete();
+      }
+    } catch (IOException e) {}
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts.
+   * Unlike {@link #readParallelly(File, Charset, int, LineReaderFunction,
+   * Executor)}, partition points are found out sequentially by the calling
+   * thread and each part is submitted to the {@link Executor} as soon as its
+   * end is found, so the processing of parts overlaps the scan of the rest of
+   * the file.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyPipelined(
+      File file, Charset charset, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor)
+      throws IOException {
+    return readParallellyPipelined(file, charset, maxLines, lineReaderFunction,
+        executor, ReadListener.NOOP);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * submitting each part as soon as its end is found, and reports the scan and
+   * the lifecycle of each part to the {@link ReadListener}.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param listener
+   *          a {@link ReadListener}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see #readParallellyPipelined(File, Charset, int, LineReaderFunction,
+   *      Executor)
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyPipelined(
+      File file, Charset charset, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor,
+      ReadListener listener) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    List<CompletableFuture<E>> futures = new ArrayList<>();
+    long[] start = new long[] { -1 };
+    LongConsumer submit = end -> {
+      if (start[0] >= 0) {
+        long position = start[0];
+        Supplier<E> task =
+            Instrumentation.task(listener, futures.size(), end - position,
+                () -> toLineReader(file, charset, position, maxLines),
+                lineReaderFunction);
+        futures.add(CompletableFuture.supplyAsync(task, executor));
+      }
+      start[0] = end;
+    };
+
+    listener.scanStarted(file);
+    long started = System.nanoTime();
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      LineBoundaries.partitionPoints(channel, size, maxLines, submit);
+      submit.accept(size);
+    }
+    listener.scanFinished(file, futures.size(), System.nanoTime() - started);
+
+    return futures;
+  }
+
+  /**
+   * Reads lines of many files parallelly as a single job. Partition points of
+   * all files are found out parallelly into one global plan: files up to 8 MB
+   * are scanned as a whole by the workers at the same time, and each larger
+   * file is scanned by blocks in parallel as
+   * {@link #getPartitionPointsParallelly(File, Charset, int, Executor)} does.
+   * Then all parts are submitted to the {@link Executor} from the largest to
+   * the smallest, so large parts of any file start first and small parts fill
+   * the idle workers at the end of the job.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param files
+   *          the {@link Path}s of files which contain lines
+   * @param charset
+   *          the {@link Charset} of all files
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param fileLineReaderFunction
+   *          a function to process each part of a file which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a map from each file to the {@link CompletableFuture}s of its parts
+   *         in partition order, iterated in the order of given files
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> Map<Path, List<CompletableFuture<E>>> readParallelly(
+      Collection<Path> files, Charset charset, int maxLines,
+      FileLineReaderFunction<E> fileLineReaderFunction, Executor executor)
+      throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    List<Path> paths = new ArrayList<>(new LinkedHashSet<>(files));
+    List<CompletableFuture<List<Long>>> scans = new ArrayList<>(paths.size());
+    long[] sizes = new long[paths.size()];
+    for (int f = 0; f < paths.size(); f++) {
+      Path path = paths.get(f);
+      sizes[f] = Files.size(path);
+      // A file larger than a block is scanned by blocks below from the calling
+      // thread, so no worker waits for the blocks run by other workers
+      if (sizes[f] > PartitionScanner.DEFAULT_BLOCK_SIZE) {
+        scans.add(null);
+        continue;
+      }
+
+      scans.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return getPartitionPoints(path.toFile(), charset, maxLines);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, executor));
+    }
+
+    Map<Path, List<CompletableFuture<E>>> futures = new LinkedHashMap<>();
+    List<List<CompletableFuture<E>>> parts = new ArrayList<>(paths.size());
+    List<long[]> plan = new ArrayList<>();
+    for (int f = 0; f < paths.size(); f++) {
+      List<Long> points = scans.get(f) == null
+          ? getPartitionPointsParallelly(paths.get(f).toFile(), charset,
+              maxLines, executor)
+          : Futures.join(scans.get(f));
+      List<CompletableFuture<E>> list =
+          new ArrayList<>(Collections.nCopies(points.size(), null));
+      futures.put(paths.get(f), Collections.unmodifiableList(list));
+      parts.add(list);
+
+      for (int i = 0; i < points.size(); i++) {
+        long end = i + 1 < points.size() ? points.get(i + 1) : sizes[f];
+        plan.add(new long[] { f, i, points.get(i), end });
+      }
+    }
+    plan.sort(Comparator.comparingLong((long[] part) -> part[3] - part[2])
+        .reversed());
+
+    for (long[] part : plan) {
+      Path path = paths.get((int) part[0]);
+      int index = (int) part[1];
+      long position = part[2];
+
+      parts.get((int) part[0]).set(index, CompletableFuture.supplyAsync(
+          () -> fileLineReaderFunction.apply(path, index,
+              toLineReader(path.toFile(), charset, position, maxLines)),
+          executor));
+    }
+
+    return futures;
+  }
+
+  /**
+   * Reads lines of all regular files under a directory which match the given
+   * glob pattern parallelly as a single job, see
+   * {@link #readParallelly(Collection, Charset, int, FileLineReaderFunction,
+   * Executor)}. The pattern is matched against the path relative to the
+   * directory, such as {@code *.log} for files in the directory or
+   * {@code **}{@code /*.log} for files in its sub-directories.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param directory
+   *          the {@link Path} of a directory
+   * @param glob
+   *          a glob pattern of {@link java.nio.file.FileSystem#getPathMatcher}
+   * @param charset
+   *          the {@link Charset} of all files
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param fileLineReaderFunction
+   *          a function to process each part of a file which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a map from each file to the {@link CompletableFuture}s of its parts
+   *         in partition order, iterated in the order of file paths
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> Map<Path, List<CompletableFuture<E>>> readParallelly(
+      Path directory, String glob, Charset charset, int maxLines,
+      FileLineReaderFunction<E> fileLineReaderFunction, Executor executor)
+      throws IOException {
+    PathMatcher matcher =
+        directory.getFileSystem().getPathMatcher("glob:" + glob);
+
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(directory)) {
+      files = paths.filter(Files::isRegularFile)
+          .filter(path -> matcher.matches(directory.relativize(path)))
+          .sorted().collect(Collectors.toList());
+    }
+
+    return readParallelly(files, charset, maxLines, fileLineReaderFunction,
+        executor);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts.
+   * Partition points are derived from the sidecar {@link PartitionIndex} of
+   * the file, which is built and saved at the first time and reused until the
+   * file is changed.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see #getIndexedPartitionPoints(File, Charset, int)
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyIndexed(File file,
+      Charset charset, int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    return readPartitionsParallelly(file, charset,
+        getIndexedPartitionPoints(file, charset, maxLines), maxLines,
+        lineReaderFunction, executor);
+  }
+
+  /**
+   * Reduces lines of a file parallelly. Each partition folds its lines into a
+   * partial result starting from the identity, and partial results are
+   * combined pairwise by a balanced tree as soon as neighboring partitions are
+   * finished. The combining keeps the order of partitions, so the combiner
+   * does not need to be commutative.
+   * 
+   * @param <U>
+   *          the type of the result
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param identity
+   *          the initial value of each partition
+   * @param accumulator
+   *          a function to fold a line into a partial result
+   * @param combiner
+   *          a function to combine 2 partial results
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a {@link CompletableFuture} of the reduced result
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <U> CompletableFuture<U> reduceParallelly(File file,
+      Charset charset, int maxLines, U identity,
+      BiFunction<U, ? super String, U> accumulator, BinaryOperator<U> combiner,
+      Executor executor) throws IOException {
+    return MergeTree.merge(
+        readParallelly(file, charset, maxLines,
+            MergeTree.reducing(identity, accumulator), executor),
+        identity, combiner);
+  }
+
+  /**
+   * Reduces partial results of each partition of a file parallelly. Partial
+   * results are combined pairwise by a balanced tree as soon as neighboring
+   * partitions are finished. The combining keeps the order of partitions, so
+   * the combiner does not need to be commutative.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param combiner
+   *          a function to combine 2 partial results
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a {@link CompletableFuture} of the reduced result
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> CompletableFuture<E> reduceParallelly(File file,
+      Charset charset, int maxLines, LineReaderFunction<E> lineReaderFunction,
+      BinaryOperator<E> combiner, Executor executor) throws IOException {
+    return MergeTree.merge(readParallelly(file, charset, maxLines,
+        lineReaderFunction, executor), null, combiner);
+  }
+
+  /**
+   * Collects lines of a file parallelly by a {@link Collector}. Each partition
+   * accumulates its lines into a new container, and containers are combined
+   * pairwise by a balanced tree as soon as neighboring partitions are
+   * finished. The combining keeps the order of partitions.
+   * 
+   * @param <A>
+   *          the mutable accumulation type of the {@link Collector}
+   * @param <R>
+   *          the type of the result
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param collector
+   *          a {@link Collector}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a {@link CompletableFuture} of the collected result
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <A, R> CompletableFuture<R> collectParallelly(File file,
+      Charset charset, int maxLines, Collector<? super String, A, R> collector,
+      Executor executor) throws IOException {
+    return MergeTree.finish(readParallelly(file, charset, maxLines,
+        MergeTree.collecting(collector), executor), collector);
+  }
+
+  /**
+   * Decodes lines of a JSON Lines (NDJSON) file parallelly and collects the
+   * decoded values by a {@link Collector}. The file is divided into byte
+   * ranges, one for each available processor, and each range is mapped into
+   * memory, so every line is handed to a {@link LineDecoder} as raw UTF-8
+   * bytes without being decoded into a String. Blank lines and null values are
+   * skipped.
+   * 
+   * @param <T>
+   *          the type of decoded values
+   * @param <A>
+   *          the mutable accumulation type of the {@link Collector}
+   * @param <R>
+   *          the type of the result
+   * @param file
+   *          which contents JSON lines
+   * @param decoders
+   *          a {@link Supplier} which creates a {@link LineDecoder} for each
+   *          part, such as {@link JsonProjection#decoders(Function)}
+   * @param collector
+   *          a {@link Collector}
+   * @return a {@link CompletableFuture} of the collected result
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <T, A, R> CompletableFuture<R> collectNdjsonParallelly(
+      File file, Supplier<? extends LineDecoder<? extends T>> decoders,
+      Collector<? super T, A, R> collector) throws IOException {
+    return collectNdjsonParallelly(file,
+        Runtime.getRuntime().availableProcessors(), decoders, collector, null);
+  }
+
+  /**
+   * Decodes lines of a JSON Lines (NDJSON) file parallelly and collects the
+   * decoded values by a {@link Collector}. The file is divided into the given
+   * number of byte ranges, and each range is mapped into memory, so every line
+   * is handed to a {@link LineDecoder} as raw UTF-8 bytes without being
+   * decoded into a String. Blank lines and null values are skipped.
+   * 
+   * @param <T>
+   *          the type of decoded values
+   * @param <A>
+   *          the mutable accumulation type of the {@link Collector}
+   * @param <R>
+   *          the type of the result
+   * @param file
+   *          which contents JSON lines
+   * @param partitions
+   *          the number of parts
+   * @param decoders
+   *          a {@link Supplier} which creates a {@link LineDecoder} for each
+   *          part, such as {@link JsonProjection#decoders(Function)}
+   * @param collector
+   *          a {@link Collector}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a {@link CompletableFuture} of the collected result
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <T, A, R> CompletableFuture<R> collectNdjsonParallelly(
+      File file, int partitions,
+      Supplier<? extends LineDecoder<? extends T>> decoders,
+      Collector<? super T, A, R> collector, Executor executor)
+      throws IOException {
+    return MergeTree.finish(readRangesParallelly(file, StandardCharsets.UTF_8,
+        getRangePoints(file, partitions), true,
+        MergeTree.decoding(decoders, collector), executor), collector);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * but keeps at most the given number of parts open at the same time. A part
+   * holds its slot until its result is taken from the returned {@link Stream},
+   * so a finished part whose result is not taken yet still counts against the
+   * limit, and the next part is started only after that. The number of opened
+   * files and pending results stays bounded however many parts the file has.
+   * The returned stream should be closed if it is not fully consumed, which
+   * stops starting new parts.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param maxInFlight
+   *          the max number of parts which are started but not taken
+   * @param ordered
+   *          true to return results in the order of parts, false to return
+   *          results in the order of completion
+   * @return a sequential {@link Stream} of the results of all parts
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see #readParallellyBounded(File, Charset, int, LineReaderFunction,
+   *      Executor, int, int, boolean)
+   */
+  public static <E> Stream<E> readParallellyBounded(File file, Charset charset,
+      int maxLines, LineReaderFunction<E> lineReaderFunction, Executor executor,
+      int maxInFlight, boolean ordered) throws IOException {
+    return readParallellyBounded(file, charset, maxLines, lineReaderFunction,
+        executor, maxInFlight, maxInFlight, ordered);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * but keeps at most the given number of parts open at the same time and at
+   * most the given number of results pending. A part is open while it is
+   * being read, and its result is pending from the start of the part until it
+   * is taken from the returned {@link Stream}. The next part is started as soon
+   * as a part is finished or a result is taken, so results which wait to be
+   * taken do not stop the workers until the pending limit is reached. The
+   * returned stream should be closed if it is not fully consumed, which stops
+   * starting new parts.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param maxInFlight
+   *          the max number of parts which are started but not finished
+   * @param maxPending
+   *          the max number of parts which are started but not taken, no less
+   *          than the max in-flight
+   * @param ordered
+   *          true to return results in the order of parts, false to return
+   *          results in the order of completion
+   * @return a sequential {@link Stream} of the results of all parts
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> Stream<E> readParallellyBounded(File file, Charset charset,
+      int maxLines, LineReaderFunction<E> lineReaderFunction, Executor executor,
+      int maxInFlight, int maxPending, boolean ordered) throws IOException {
+    List<Long> partitionPoints =
+        getPartitionPointsParallelly(file, charset, maxLines, executor);
+
+    return boundedStream(partitionPoints.size(),
+        i -> () -> lineReaderFunction.apply(i,
+            toLineReader(file, charset, partitionPoints.get(i), maxLines)),
+        executor, maxInFlight, maxPending, ordered);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * but keeps at most the given number of parts open at the same time.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param reader
+   *          which contents lines
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param maxInFlight
+   *          the max number of parts which are started but not taken
+   * @param ordered
+   *          true to return results in the order of parts, false to return
+   *          results in the order of completion
+   * @return a sequential {@link Stream} of the results of all parts
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see #readParallellyBounded(File, Charset, int, LineReaderFunction,
+   *      Executor, int, boolean)
+   */
+  public static <E> Stream<E> readParallellyBounded(
+      Supplier<? extends Reader> reader, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor,
+      int maxInFlight, boolean ordered) throws IOException {
+    return readParallellyBounded(reader, maxLines, lineReaderFunction,
+        executor, maxInFlight, maxInFlight, ordered);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * but keeps at most the given number of parts open at the same time and at
+   * most the given number of results pending.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param reader
+   *          which contents lines
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param maxInFlight
+   *          the max number of parts which are started but not finished
+   * @param maxPending
+   *          the max number of parts which are started but not taken, no less
+   *          than the max in-flight
+   * @param ordered
+   *          true to return results in the order of parts, false to return
+   *          results in the order of completion
+   * @return a sequential {@link Stream} of the results of all parts
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see #readParallellyBounded(File, Charset, int, LineReaderFunction,
+   *      Executor, int, int, boolean)
+   */
+  public static <E> Stream<E> readParallellyBounded(
+      Supplier<? extends Reader> reader, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor,
+      int maxInFlight, int maxPending, boolean ordered) throws IOException {
+    List<Long> skipPoints = getSkipPoints(reader.get(), maxLines);
+
+    return boundedStream(skipPoints.size(),
+        i -> () -> lineReaderFunction.apply(i,
+            toLineReader(reader.get(), skipPoints.get(i), maxLines)),
+        executor, maxInFlight, maxPending, ordered);
+  }
+
+  /**
+   * Reads lines of content parallelly by dividing the input into smaller parts,
+   * and hands the result of each part to the consumer in the order of parts.
+   * Results which are finished ahead of their turn wait in a reorder window,
+   * and no more parts are started while the window is full, so the memory use
+   * is bounded by the window size instead of the whole input. The consumer is
+   * always called on the current thread.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param consumer
+   *          to receive the result of each part in order
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param window
+   *          the max number of parts which are started but not consumed
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> void readParallellyOrdered(File file, Charset charset,
+      int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Consumer<? super E> consumer, Executor executor, int window)
+      throws IOException {
+    try (Stream<E> results = readParallellyBounded(file, charset, maxLines,
+        lineReaderFunction, executor, window, true)) {
+      results.forEachOrdered(consumer);
+    }
+  }
+
+  /**
+   * Transforms lines of a file parallelly and writes transformed lines to the
+   * {@link Writer} in the original order. Each line is followed by a line feed,
+   * and lines which are transformed into null are dropped. At most the given
+   * number of parts are transformed ahead of the writing.
+   * 
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param mapper
+   *          a function to transform each line
+   * @param writer
+   *          to receive transformed lines in order
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @param window
+   *          the max number of parts which are started but not written
+   * @throws IOException
+   *           if any I/O Exception happened during reading or writing
+   * @see #readParallellyOrdered(File, Charset, int, LineReaderFunction,
+   *      Consumer, Executor, int)
+   */
+  public static void transformParallelly(File file, Charset charset,
+      int maxLines, Function<? super String, ? extends CharSequence> mapper,
+      Writer writer, Executor executor, int window) throws IOException {
+    try (Stream<StringBuilder> results = readParallellyBounded(file, charset,
+        maxLines, transforming(mapper), executor, window, true)) {
+      writeAll(results, writer);
+    }
+  }
+
+  static LineReaderFunction<StringBuilder> transforming(
+      Function<? super String, ? extends CharSequence> mapper) {
+    return (part, lr) -> {
+      StringBuilder sb = new StringBuilder();
+      try {
+        while (lr.hasNext()) {
+          CharSequence output = mapper.apply(lr.readLineQuietly());
+          if (output != null) sb.append(output).append('\n');
+        }
+      } finally {
+        lr.closeQuietly();
+      }
+      return sb;
+    };
+  }
+
+  static void writeAll(Stream<? extends CharSequence> outputs, Writer writer)
+      throws IOException {
+    Iterator<? extends CharSequence> iterator = outputs.iterator();
+    while (iterator.hasNext()) {
+      writer.append(iterator.next());
+    }
+    writer.flush();
+  }
+
+  private static <E> Stream<E> boundedStream(int partitions,
+      IntFunction<Supplier<E>> taskFactory, Executor executor, int maxInFlight,
+      int maxPending, boolean ordered) {
+    BoundedPartitionIterator<E> iterator = new BoundedPartitionIterator<>(
+        partitions, taskFactory, executor, maxInFlight, maxPending, ordered);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        ordered ? Spliterator.ORDERED : 0), false).onClose(iterator::close);
+  }
+
+  private static <E> List<CompletableFuture<E>> readPartitionsParallelly(
+      File file, Charset charset, List<Long> partitionPoints, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor) {
+    return readPartitionsParallelly(file, charset, partitionPoints, maxLines,
+        lineReaderFunction, executor, ReadListener.NOOP);
+  }
+
+  private static <E> List<CompletableFuture<E>> readPartitionsParallelly(
+      File file, Charset charset, List<Long> partitionPoints, int maxLines,
+      LineReaderFunction<E> lineReaderFunction, Executor executor,
+      ReadListener listener) {
+    List<CompletableFuture<E>> futures = new ArrayList<>();
+    long length = file.length();
+
+    for (int i = 0; i < partitionPoints.size(); i++) {
+      long position = partitionPoints.get(i);
+      long end =
+          i + 1 < partitionPoints.size() ? partitionPoints.get(i + 1) : length;
+
+      Supplier<E> task = Instrumentation.task(listener, i, end - position,
+          () -> toLineReader(file, charset, position, maxLines),
+          lineReaderFunction);
+      futures.add(executor == null ? CompletableFuture.supplyAsync(task)
+          : CompletableFuture.supplyAsync(task, executor));
+    }
+
+    return futures;
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into byte ranges,
+   * one for each available processor. Each boundary is moved forward to the
+   * next line start, so the file is never scanned as a whole beforehand.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyByRange(File file,
+      LineReaderFunction<E> lineReaderFunction) throws IOException {
+    return readRangesParallelly(file, getRangePoints(file), lineReaderFunction,
+        null);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into byte ranges,
+   * one for each available processor. Each boundary is moved forward to the
+   * next line start, so the file is never scanned as a whole beforehand.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyByRange(File file,
+      LineReaderFunction<E> lineReaderFunction, Executor executor)
+      throws IOException {
+    return readRangesParallelly(file, getRangePoints(file), lineReaderFunction,
+        executor);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into the given
+   * number of byte ranges. Each boundary is moved forward to the next line
+   * start, so the file is never scanned as a whole beforehand.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param partitions
+   *          the number of parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyByRange(File file,
+      int partitions, LineReaderFunction<E> lineReaderFunction)
+      throws IOException {
+    return readRangesParallelly(file, getRangePoints(file, partitions),
+        lineReaderFunction, null);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into the given
+   * number of byte ranges. Each boundary is moved forward to the next line
+   * start, so the file is never scanned as a whole beforehand.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param partitions
+   *          the number of parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyByRange(File file,
+      int partitions, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    return readRangesParallelly(file, getRangePoints(file, partitions),
+        lineReaderFunction, executor);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into the given
+   * number of byte ranges. Each boundary is moved forward to the next line
+   * start, so the file is never scanned as a whole beforehand.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param partitions
+   *          the number of parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyByRange(File file,
+      Charset charset, int partitions, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    LineBoundaries.checkCharset(charset);
+    return readRangesParallelly(file, charset, getRangePoints(file, partitions),
+        false, lineReaderFunction, executor);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into byte ranges of
+   * the given chunk size. Each boundary is moved forward to the next line
+   * start, so the file is never scanned as a whole beforehand.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param chunkSize
+   *          the targeted bytes of each part
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyByChunkSize(
+      File file, long chunkSize, LineReaderFunction<E> lineReaderFunction)
+      throws IOException {
+    return readRangesParallelly(file,
+        getRangePointsByChunkSize(file, chunkSize), lineReaderFunction, null);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into byte ranges of
+   * the given chunk size. Each boundary is moved forward to the next line
+   * start, so the file is never scanned as a whole beforehand.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param chunkSize
+   *          the targeted bytes of each part
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyByChunkSize(
+      File file, long chunkSize, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    return readRangesParallelly(file,
+        getRangePointsByChunkSize(file, chunkSize), lineReaderFunction,
+        executor);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into the given
+   * number of byte ranges. Each range is mapped into memory and lines are
+   * found directly in the mapped bytes.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param partitions
+   *          the number of parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyMapped(File file,
+      int partitions, LineReaderFunction<E> lineReaderFunction)
+      throws IOException {
+    return readRangesParallelly(file, Charset.defaultCharset(),
+        getRangePoints(file, partitions), true, lineReaderFunction, null);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into the given
+   * number of byte ranges. Each range is mapped into memory and lines are
+   * found directly in the mapped bytes.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param partitions
+   *          the number of parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyMapped(File file,
+      int partitions, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    return readRangesParallelly(file, Charset.defaultCharset(),
+        getRangePoints(file, partitions), true, lineReaderFunction, executor);
+  }
+
+  /**
+   * Reads lines of a file parallelly by dividing the file into the given
+   * number of byte ranges. Each range is mapped into memory and lines are
+   * found directly in the mapped bytes.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param partitions
+   *          the number of parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyMapped(File file,
+      Charset charset, int partitions, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    LineBoundaries.checkCharset(charset);
+    return readRangesParallelly(file, charset, getRangePoints(file, partitions),
+        true, lineReaderFunction, executor);
+  }
+
+  private static <E> List<CompletableFuture<E>> readRangesParallelly(File file,
+      List<Long> rangePoints, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) {
+    return readRangesParallelly(file, Charset.defaultCharset(), rangePoints,
+        false, lineReaderFunction, executor);
+  }
+
+  /**
+   * Reads lines of a file parallelly by a worker for each available processor.
+   * Workers claim chunks of 1 MB one by one until the file is exhausted, so
+   * the workload is balanced dynamically.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param lineReaderFunction
+   *          a function to process each chunk of the file which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s, one for each chunk in order
+   * @see #readParallellyAdaptive(File, Charset, long, LineReaderFunction,
+   *      Executor, int)
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyAdaptive(
+      File file, Charset charset, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) {
+    return readParallellyAdaptive(file, charset,
+        ChunkScheduler.DEFAULT_CHUNK_SIZE, lineReaderFunction, executor,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Reads lines of a file parallelly by the given number of workers. The file
+   * is divided into chunks of the given size, and each worker claims the next
+   * unread chunk from a shared cursor whenever it finishes one, so faster
+   * workers take over the tail of the file instead of waiting for a straggler.
+   * Each chunk is aligned to line starts and read as a contiguous part, whose
+   * index is its stable chunk number. A chunk within a long line can be
+   * empty.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param chunkSize
+   *          the bytes of each chunk
+   * @param lineReaderFunction
+   *          a function to process each chunk of the file which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to run workers
+   * @param workers
+   *          the number of workers
+   * @return a list of {@link CompletableFuture}s, one for each chunk in order
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyAdaptive(
+      File file, Charset charset, long chunkSize,
+      LineReaderFunction<E> lineReaderFunction, Executor executor,
+      int workers) {
+    LineBoundaries.checkCharset(charset);
+    return ChunkScheduler.schedule(file, charset, chunkSize,
+        lineReaderFunction, executor, workers);
+  }
+
+  private static <E> List<CompletableFuture<E>> readRangesParallelly(File file,
+      Charset charset, List<Long> rangePoints, boolean mapped,
+      LineReaderFunction<E> lineReaderFunction, Executor executor) {
+    List<CompletableFuture<E>> futures = new ArrayList<>();
+
+    long size = file.length();
+    for (int i = 0; i < rangePoints.size(); i++) {
+      int ii = i;
+      long start = rangePoints.get(i);
+      long end = i + 1 < rangePoints.size() ? rangePoints.get(i + 1) : size;
+
+      Supplier<E> task = () -> lineReaderFunction.apply(ii,
+          mapped ? toMappedLineReader(file, charset, start, end)
+              : toRangeLineReader(file, charset, start, end));
+      futures.add(executor == null ? CompletableFuture.supplyAsync(task)
+          : CompletableFuture.supplyAsync(task, executor));
+    }
+
+    return futures;
+  }
+
+  /**
+   * Reads lines of a gzip file parallelly. The file is decompressed only once
+   * by the current thread, and every max number of lines are handed to a worker
+   * as soon as they are decompressed. A BGZF file can be read more parallelly
+   * by {@link #readParallellyBgzf(File, Charset, int, LineReaderFunction,
+   * Executor)}.
+   * 
+   * @param <E>
+   *          the type of returning value
+   * @param file
+   *          a gzip file which contents lines
+   * @param charset
+   *          the {@link Charset} of the uncompressed content
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see #readParallelly(Reader, int, LineReaderFunction, Executor)
+   */
+  public static <E> List<CompletableFuture<E>> readParallellyGzip(File file,
+      Charset charset, int maxLines, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    InputStream in = new BufferedInputStream(
+        new GZIPInputStream(new FileInputStream(file), 1 << 16), 1 << 16);
+    if (StandardCharsets.UTF_8.equals(charset)) {
+      byte[] bom = new byte[LineBoundaries.UTF8_BOM.length];
+      in.mark(bom.length);
+      int n = 0;
+      while (n < bom.length) {
+        int read = in.read(bom, n, bom.length - n);
+        if (read < 0) break;
+        n += read;
+      }
+      if (!Arrays.equals(LineBoundaries.UTF8_BOM, bom)) in.reset();
     }
 
-    return futures;
+    return readParallelly(new InputStreamReader(in, charset), maxLines,
+        lineReaderFunction, executor);
   }
 
   /**
-   * Reads lines of content parallelly by dividing the input into smaller parts.
+   * Reads lines of a BGZF (blocked gzip) file parallelly, such as the files
+   * produced by bgzip. The file is divided into about the given number of
+   * parts on block boundaries by reading block headers only, and each part
+   * decompresses its own blocks. A line which crosses 2 parts is read by the
+   * part it starts in.
    * 
    * @param <E>
    *          the type of returning value
    * @param file
-   *          which contents lines
-   * @param maxLines
-   *          the max number of lines of each parts
+   *          a BGZF file which contents lines
+   * @param charset
+   *          the {@link Charset} of the uncompressed content
+   * @param partitions
+   *          the number of parts to be divided into
    * @param lineReaderFunction
    *          a function to process each part of the content which is read by a
    *          {@link LineReader}
@@ -166,28 +1750,89 @@ public final class LineReaders {
    *          a Java {@link Executor} to use
    * @return a list of {@link CompletableFuture}s
    * @throws IOException
-   *           if any I/O Exception happened during reading
+   *           if any I/O Exception happened during reading or the file is not
+   *           a BGZF file
+   * @see #isBgzf(File)
    */
-  public static <E> List<CompletableFuture<E>> readParallelly(File file,
-      int maxLines, LineReaderFunction<E> lineReaderFunction, Executor executor)
-      throws IOException {
-    List<CompletableFuture<E>> futures = new ArrayList<>();
+  public static <E> List<CompletableFuture<E>> readParallellyBgzf(File file,
+      Charset charset, int partitions, LineReaderFunction<E> lineReaderFunction,
+      Executor executor) throws IOException {
+    LineBoundaries.checkCharset(charset);
+    if (partitions < 1) {
+      throw new IllegalArgumentException("Partitions must be positive");
+    }
 
-    List<Long> skipPoints = getPartitionPoints(file, maxLines);
+    BgzfBlocks blocks;
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      blocks = BgzfBlocks.scan(channel);
+    }
 
-    for (int i = 0; i < skipPoints.size(); i++) {
+    List<Integer> firstBlocks = new ArrayList<>();
+    long size = blocks.offset(blocks.count());
+    for (int block = 0, i = 0; i < partitions; i++) {
+      long target = size / partitions * i;
+      while (block < blocks.count() && blocks.offset(block) < target) {
+        block++;
+      }
+      if (block < blocks.count() && (firstBlocks.isEmpty()
+          || firstBlocks.get(firstBlocks.size() - 1) < block)) {
+        firstBlocks.add(block);
+      }
+    }
+
+    List<CompletableFuture<E>> futures = new ArrayList<>();
+    for (int i = 0; i < firstBlocks.size(); i++) {
       int ii = i;
-      CompletableFuture<E> future = CompletableFuture.supplyAsync(() -> {
-        return lineReaderFunction.apply(ii,
-            toLineReader(file, skipPoints.get(ii), maxLines));
-      }, executor);
+      int from = firstBlocks.get(i);
+      int to = i + 1 < firstBlocks.size() ? firstBlocks.get(i + 1)
+          : blocks.count();
+      long limit = 0;
+      for (int block = from; block < to; block++) {
+        limit += blocks.uncompressedSize(block);
+      }
+      long groupLimit = limit;
 
-      futures.add(future);
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        LineSource source;
+        try {
+          FileChannel channel =
+              FileChannel.open(file.toPath(), StandardOpenOption.READ);
+          InputStream in = blocks.open(channel, from);
+          try {
+            source = new StreamLineSource(in, charset,
+                blocks.lastByteBefore(channel, from), groupLimit);
+          } catch (IOException e) {
+            in.close();
+            throw e;
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return lineReaderFunction.apply(ii,
+            new LineReader(source, Long.MAX_VALUE));
+      }, executor));
     }
 
     return futures;
   }
 
+  /**
+   * Checks if a file is a BGZF (blocked gzip) file.
+   * 
+   * @param file
+   *          any file
+   * @return true if the file starts with a BGZF block, false otherwise
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public static boolean isBgzf(File file) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return BgzfBlocks.isBgzf(channel);
+    }
+  }
+
   /**
    * Creates a {@link LineReader} to read part of lines of a {@link Reader}.
    * 
@@ -220,6 +1865,194 @@ public final class LineReaders {
     return new LineReader(file, position, maxLines);
   }
 
+  /**
+   * Creates a {@link LineReader} to read part of lines of a {@link File} by
+   * given {@link Charset}.
+   * 
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param position
+   *          bytes to be skipped
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a {@link LineReader}
+   */
+  public static LineReader toLineReader(File file, Charset charset,
+      long position, int maxLines) {
+    return new LineReader(file, position, maxLines, charset);
+  }
+
+  /**
+   * Creates a {@link LineReader} to read all lines within a byte range of a
+   * {@link File}. Both the start and the end should be line starts or the end
+   * of the file.
+   * 
+   * @param file
+   *          which contents lines
+   * @param start
+   *          the byte offset to start from, inclusive
+   * @param end
+   *          the byte offset to stop at, exclusive
+   * @return a {@link LineReader}
+   */
+  public static LineReader toRangeLineReader(File file, long start, long end) {
+    return toRangeLineReader(file, Charset.defaultCharset(), start, end);
+  }
+
+  /**
+   * Creates a {@link LineReader} to read all lines within a byte range of a
+   * {@link File} by given {@link Charset}. Both the start and the end should be
+   * line starts or the end of the file. The byte order mark of an UTF-8 file is
+   * skipped if the start is 0.
+   * 
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param start
+   *          the byte offset to start from, inclusive
+   * @param end
+   *          the byte offset to stop at, exclusive
+   * @return a {@link LineReader}
+   */
+  public static LineReader toRangeLineReader(File file, Charset charset,
+      long start, long end) {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      start = LineBoundaries.skipBom(channel, start, charset);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    return new LineReader(LineReader.fileSource(
+        new RangeInputStream(channel, start, end), charset), Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a {@link LineReader} to read all lines within a byte range of a
+   * {@link File} by mapping the range into memory. Both the start and the end
+   * should be line starts or the end of the file. A range larger than 1 GB is
+   * mapped by several windows.
+   * 
+   * @param file
+   *          which contents lines
+   * @param start
+   *          the byte offset to start from, inclusive
+   * @param end
+   *          the byte offset to stop at, exclusive
+   * @return a {@link LineReader}
+   */
+  public static LineReader toMappedLineReader(File file, long start,
+      long end) {
+    return toMappedLineReader(file, Charset.defaultCharset(), start, end);
+  }
+
+  /**
+   * Creates a {@link LineReader} to read all lines within a byte range of a
+   * {@link File} by mapping the range into memory and decoding each line by
+   * given {@link Charset}. Both the start and the end should be line starts or
+   * the end of the file. The byte order mark of an UTF-8 file is skipped if
+   * the start is 0.
+   * 
+   * @param file
+   *          which contents lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param start
+   *          the byte offset to start from, inclusive
+   * @param end
+   *          the byte offset to stop at, exclusive
+   * @return a {@link LineReader}
+   */
+  public static LineReader toMappedLineReader(File file, Charset charset,
+      long start, long end) {
+    LineBoundaries.checkCharset(charset);
+
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      start = LineBoundaries.skipBom(channel, start, charset);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    return new LineReader(new MappedLineSource(channel, start, end, charset,
+        MappedLineSource.DEFAULT_WINDOW_SIZE), Long.MAX_VALUE);
+  }
+
+  /**
+   * Finds out all range points of a file by dividing the file into byte
+   * ranges, one for each available processor.
+   * 
+   * @param file
+   *          which contains lines
+   * @return a list of Long numbers represents starting bytes of each range
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   * @see #getRangePoints(File, int)
+   */
+  public static List<Long> getRangePoints(File file) throws IOException {
+    return getRangePoints(file, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Finds out all range points of a file by dividing the file into the given
+   * number of byte ranges. Each range point is moved forward to the next line
+   * start, so only a few bytes around each point are read. Any 2 successive
+   * points means all bytes within this interval which are whole lines, and the
+   * last range ends at the end of the file. Fewer points may be returned if
+   * some lines are longer than a range.
+   * 
+   * @param file
+   *          which contains lines
+   * @param partitions
+   *          the number of ranges
+   * @return a list of Long numbers represents starting bytes of each range
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   */
+  public static List<Long> getRangePoints(File file, int partitions)
+      throws IOException {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("Partitions must be positive");
+    }
+
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      long chunkSize = Math.max(1, (size + partitions - 1) / partitions);
+      return LineBoundaries.rangePoints(channel, size, chunkSize);
+    }
+  }
+
+  /**
+   * Finds out all range points of a file by dividing the file into byte
+   * ranges of the given chunk size. Each range point is moved forward to the
+   * next line start, so only a few bytes around each point are read.
+   * 
+   * @param file
+   *          which contains lines
+   * @param chunkSize
+   *          the targeted bytes of each range
+   * @return a list of Long numbers represents starting bytes of each range
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   */
+  public static List<Long> getRangePointsByChunkSize(File file, long chunkSize)
+      throws IOException {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return LineBoundaries.rangePoints(channel, channel.size(), chunkSize);
+    }
+  }
+
   /**
    * Finds out all partition points of a {@link Reader} based on the given max
    * line number. Each skip point represents lengths of characters starting from
@@ -240,7 +2073,7 @@ public final class LineReaders {
       throws IOException {
     WholeLineReader wlr = new WholeLineReader(reader);
 
-    List<Long> skipPoints = new ArrayList<>();
+    PartitionPlan skipPoints = new PartitionPlan();
     skipPoints.add(0L);
 
     long skipPoint = 0;
@@ -259,7 +2092,8 @@ public final class LineReaders {
     }
 
     wlr.close();
-    return skipPoints;
+    skipPoints.complete();
+    return skipPoints.asList();
   }
 
   /**
@@ -267,6 +2101,9 @@ public final class LineReaders {
    * number. Each partition point represents lengths of bytes starting from the
    * beginning of a file. Any 2 successive points means all bytes within this
    * interval contain a max number of lines or less if it is the last part.
+   * The file is scanned on raw bytes if line terminators of the default
+   * {@link Charset} are single ASCII bytes; otherwise it is decoded line by
+   * line.
    * 
    * @param file
    *          which contains lines
@@ -278,27 +2115,294 @@ public final class LineReaders {
    */
   public static List<Long> getPartitionPoints(File file, int maxLines)
       throws IOException {
-    WholeLineReader wlr = new WholeLineReader(new FileReader(file));
+    Charset charset = Charset.defaultCharset();
+    if (LineBoundaries.isByteTerminated(charset)) {
+      return getPartitionPoints(file, charset, maxLines);
+    }
 
-    List<Long> skipPoints = new ArrayList<>();
-    skipPoints.add(0L);
+    return getDecodedPartitionPoints(file, charset, maxLines);
+  }
 
-    long skipPoint = 0;
+  /**
+   * Finds out all partition points of a file by decoding it line by line, so
+   * it works with any {@link Charset}. The byte length of each line is
+   * measured by encoding the line again.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   */
+  static List<Long> getDecodedPartitionPoints(File file, Charset charset,
+      int maxLines) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+
+    WholeLineReader wlr = new WholeLineReader(
+        new InputStreamReader(new FileInputStream(file), charset));
+
+    PartitionPlan partitionPoints = new PartitionPlan();
+    partitionPoints.add(0L);
+
+    long partitionPoint = 0;
     long lineNum = 0;
 
     String line = wlr.readLine();
     while (line != null) {
       lineNum++;
-      skipPoint += line.getBytes().length;
+      partitionPoint += line.getBytes(charset).length;
 
       if (lineNum % maxLines == 0) {
-        skipPoints.add(skipPoint);
+        partitionPoints.add(partitionPoint);
       }
 
       line = wlr.readLine();
     }
 
-    return skipPoints;
+    wlr.close();
+    partitionPoints.complete();
+    return partitionPoints.asList();
+  }
+
+  /**
+   * Finds out all partition points of a file based on the given max line
+   * number. Each partition point represents lengths of bytes starting from the
+   * beginning of a file. Any 2 successive points means all bytes within this
+   * interval contain a max number of lines or less if it is the last part.
+   * Line terminators (LF, CR or CRLF) are found on raw bytes, so the file is
+   * never decoded and the points are exact for any ASCII compatible
+   * {@link Charset}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   * @throws IllegalArgumentException
+   *           if line terminators of the {@link Charset} are not single ASCII
+   *           bytes
+   */
+  public static List<Long> getPartitionPoints(File file, Charset charset,
+      int maxLines) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    return getPartitionPlan(file, charset, maxLines).asList();
+  }
+
+  /**
+   * Finds out all partition points of a file based on the given max line
+   * number into a {@link PartitionPlan}, which keeps the points in a primitive
+   * array. The points are the same as
+   * {@link #getPartitionPoints(File, Charset, int)}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a complete {@link PartitionPlan}
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   */
+  public static PartitionPlan getPartitionPlan(File file, Charset charset,
+      int maxLines) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    PartitionPlan plan = new PartitionPlan();
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      LineBoundaries.partitionPoints(channel, channel.size(), maxLines,
+          plan::add);
+    }
+    plan.complete();
+    return plan;
+  }
+
+  /**
+   * Starts to find out all partition points of a file by the given
+   * {@link Executor} and returns the {@link PartitionPlan} right away. Each
+   * point is appended to the plan as soon as it is found, so the plan can be
+   * consumed by {@link PartitionPlan#iterator()} while the file is still being
+   * scanned. A failure of the scan is reported by the plan.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param executor
+   *          a Java {@link Executor} to run the scan
+   * @return a {@link PartitionPlan} which is being filled
+   */
+  public static PartitionPlan getPartitionPlanLazily(File file,
+      Charset charset, int maxLines, Executor executor) {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    PartitionPlan plan = new PartitionPlan();
+    executor.execute(() -> {
+      try (FileChannel channel =
+          FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        LineBoundaries.partitionPoints(channel, channel.size(), maxLines,
+            plan::add);
+        plan.complete();
+      } catch (Throwable e) {
+        plan.fail(e);
+      }
+    });
+    return plan;
+  }
+
+  /**
+   * Finds out all partition points of a file based on the given max line
+   * number by its sidecar {@link PartitionIndex}. A valid sidecar index is
+   * reused, otherwise a new index is built and saved. The result is the same
+   * as {@link #getPartitionPoints(File, Charset, int)}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   */
+  public static List<Long> getIndexedPartitionPoints(File file,
+      Charset charset, int maxLines) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+
+    return PartitionIndex.getOrBuild(file, charset,
+        Math.min(maxLines, PartitionIndex.DEFAULT_SAMPLE_INTERVAL))
+        .getPartitionPlan(maxLines).asList();
+  }
+
+  /**
+   * Finds out all partition points of a file parallelly on the common
+   * {@link ForkJoinPool}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   * @see #getPartitionPointsParallelly(File, Charset, int, Executor)
+   */
+  public static List<Long> getPartitionPointsParallelly(File file,
+      Charset charset, int maxLines) throws IOException {
+    return getPartitionPointsParallelly(file, charset, maxLines,
+        ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Finds out all partition points of a file parallelly. The file is divided
+   * into 8 MB blocks and line terminators of each block are counted
+   * parallelly. The counts are prefix-summed into the line number at the
+   * beginning of each block, and then the blocks which contain partition
+   * points are scanned parallelly again to locate the exact offsets. The
+   * result is the same as {@link #getPartitionPoints(File, Charset, int)}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   * @throws IOException
+   *           if any I/O Exception happened during parsing
+   */
+  public static List<Long> getPartitionPointsParallelly(File file,
+      Charset charset, int maxLines, Executor executor) throws IOException {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Max lines must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return PartitionScanner.partitionPoints(channel, channel.size(),
+          maxLines, PartitionScanner.DEFAULT_BLOCK_SIZE, executor);
+    }
+  }
+
+  /**
+   * Creates a {@link Stream} of all lines of a file with the default
+   * {@link Charset}.
+   * 
+   * @param file
+   *          which contains lines
+   * @return a {@link Stream} of lines
+   * @throws IOException
+   *           if any I/O Exception happened during opening the file
+   * @see #lines(File, Charset)
+   */
+  public static Stream<String> lines(File file) throws IOException {
+    return lines(file, Charset.defaultCharset());
+  }
+
+  /**
+   * Creates a {@link Stream} of all lines of a file. The stream is backed by a
+   * {@link java.util.Spliterator} which is split by byte ranges at line
+   * starts, so a {@link Stream#parallel() parallel} stream divides the file
+   * evenly without reading it beforehand, for any {@link Charset} whose line
+   * terminators are single ASCII bytes. Each split is read through a memory
+   * mapping. The returned stream should be closed to release all opened
+   * resources.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @return a sequential {@link Stream} of lines
+   * @throws IOException
+   *           if any I/O Exception happened during opening the file
+   */
+  public static Stream<String> lines(File file, Charset charset)
+      throws IOException {
+    LineBoundaries.checkCharset(charset);
+
+    LineSpliterator.Context context =
+        new LineSpliterator.Context(file, charset);
+    return StreamSupport
+        .stream(new LineSpliterator(context, 0, context.size(),
+            LineSpliterator.MIN_SPLIT_SIZE), false)
+        .onClose(() -> {
+          try {
+            context.close();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
   }
 
 }
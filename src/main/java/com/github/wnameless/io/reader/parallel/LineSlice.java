@@ -0,0 +1,301 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * 
+ * {@link LineSlice} is a reusable view over the bytes of a line. It is filled
+ * by {@link LineReader#readLine(LineSlice)} without copying the underlying
+ * bytes, so the content of a {@link LineSlice} is only valid until the next
+ * read of the same {@link LineReader}. All helper methods work on the bytes
+ * directly and never allocate.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class LineSlice {
+
+  private ByteBuffer buffer;
+  private int offset;
+  private int length;
+
+  void set(ByteBuffer buffer, int offset, int length) {
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Returns the buffer which holds the bytes of this slice. The buffer must
+   * be accessed by absolute indexes and must not be modified.
+   * 
+   * @return a {@link ByteBuffer}
+   */
+  public ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Returns the index of the first byte of this slice in the buffer.
+   * 
+   * @return the offset of this slice
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Returns the number of bytes of this slice.
+   * 
+   * @return the length of this slice
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the byte at the given index of this slice.
+   * 
+   * @param index
+   *          starting from 0
+   * @return a byte
+   */
+  public byte byteAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException(
+          "Index: " + index + ", Length: " + length);
+    }
+    return buffer.get(offset + index);
+  }
+
+  /**
+   * Returns the index of the first occurrence of the given byte.
+   * 
+   * @param b
+   *          a byte to search for
+   * @param fromIndex
+   *          the index to start searching from
+   * @return the index of the byte or -1 if not found
+   */
+  public int indexOf(byte b, int fromIndex) {
+    for (int i = Math.max(0, fromIndex); i < length; i++) {
+      if (buffer.get(offset + i) == b) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Checks if the content of this slice is equal to the given bytes.
+   * 
+   * @param bytes
+   *          to be compared
+   * @return true if contents are equal, false otherwise
+   */
+  public boolean contentEquals(byte[] bytes) {
+    if (bytes.length != length) return false;
+    return regionMatches(0, bytes);
+  }
+
+  /**
+   * Checks if the content of this slice is equal to the content of the given
+   * {@link LineSlice}.
+   * 
+   * @param other
+   *          a {@link LineSlice}
+   * @return true if contents are equal, false otherwise
+   */
+  public boolean contentEquals(LineSlice other) {
+    if (other.length != length) return false;
+    for (int i = 0; i < length; i++) {
+      if (buffer.get(offset + i) != other.buffer.get(other.offset + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if this slice starts with the given bytes.
+   * 
+   * @param prefix
+   *          to be compared
+   * @return true if this slice starts with the prefix, false otherwise
+   */
+  public boolean startsWith(byte[] prefix) {
+    if (prefix.length > length) return false;
+    return regionMatches(0, prefix);
+  }
+
+  private boolean regionMatches(int from, byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++) {
+      if (buffer.get(offset + from + i) != bytes[i]) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Computes a hash code of the content of this slice. Slices with equal
+   * contents always have the same hash code.
+   * 
+   * @return a hash code
+   */
+  public int contentHashCode() {
+    int h = 1;
+    for (int i = 0; i < length; i++) {
+      h = 31 * h + buffer.get(offset + i);
+    }
+    return h;
+  }
+
+  /**
+   * Parses the content of this slice as a signed decimal integer.
+   * 
+   * @return an integer
+   * @throws NumberFormatException
+   *           if the content is not a valid integer
+   */
+  public int parseInt() {
+    long value = parseLong();
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new NumberFormatException(
+          "Value out of range: " + toString(Charset.defaultCharset()));
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parses the content of this slice as a signed decimal long.
+   * 
+   * @return a long
+   * @throws NumberFormatException
+   *           if the content is not a valid long
+   */
+  public long parseLong() {
+    if (length == 0) throw new NumberFormatException("Empty slice");
+
+    int i = 0;
+    boolean negative = false;
+    byte first = buffer.get(offset);
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      i++;
+      if (length == 1) throw invalidNumber();
+    }
+
+    // Accumulates negatively to cover Long.MIN_VALUE
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multmin = limit / 10;
+    long result = 0;
+    for (; i < length; i++) {
+      int digit = buffer.get(offset + i) - '0';
+      if (digit < 0 || digit > 9 || result < multmin) throw invalidNumber();
+
+      result *= 10;
+      if (result < limit + digit) throw invalidNumber();
+      result -= digit;
+    }
+
+    return negative ? result : -result;
+  }
+
+  private NumberFormatException invalidNumber() {
+    return new NumberFormatException(
+        "For input: \"" + toString(Charset.defaultCharset()) + "\"");
+  }
+
+  /**
+   * Points the target {@link LineSlice} to the field of the given index.
+   * Fields are separated by the delimiter.
+   * 
+   * @param index
+   *          the index of a field starting from 0
+   * @param delimiter
+   *          the byte which separates fields
+   * @param target
+   *          a {@link LineSlice} to be filled
+   * @return true if the field is found, false otherwise
+   */
+  public boolean field(int index, byte delimiter, LineSlice target) {
+    int start = 0;
+    for (int f = 0; f < index; f++) {
+      int d = indexOf(delimiter, start);
+      if (d < 0) return false;
+      start = d + 1;
+    }
+
+    int d = indexOf(delimiter, start);
+    target.set(buffer, offset + start, (d < 0 ? length : d) - start);
+    return true;
+  }
+
+  /**
+   * Splits this slice by the delimiter into the given {@link LineSlice}s.
+   * Fields beyond the size of the array are ignored.
+   * 
+   * @param delimiter
+   *          the byte which separates fields
+   * @param fields
+   *          an array of {@link LineSlice}s to be filled
+   * @return the number of filled fields
+   */
+  public int split(byte delimiter, LineSlice[] fields) {
+    int count = 0;
+    int start = 0;
+    while (count < fields.length) {
+      int d = indexOf(delimiter, start);
+      int stop = d < 0 ? length : d;
+      fields[count++].set(buffer, offset + start, stop - start);
+
+      if (d < 0) break;
+      start = d + 1;
+    }
+    return count;
+  }
+
+  /**
+   * Decodes the content of this slice into a String by given {@link Charset}.
+   * 
+   * @param charset
+   *          a {@link Charset}
+   * @return a String
+   */
+  public String toString(Charset charset) {
+    if (buffer == null) return "";
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset() + offset, length,
+          charset);
+    }
+
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(offset + i);
+    }
+    return new String(bytes, charset);
+  }
+
+  /**
+   * Decodes the content of this slice into a String by the default
+   * {@link Charset}.
+   */
+  @Override
+  public String toString() {
+    return toString(Charset.defaultCharset());
+  }
+
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 
+ * {@link LineSource} is the backend of a {@link LineReader} which provides
+ * lines one by one.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+interface LineSource extends Closeable {
+
+  /**
+   * Returns true if there is a next line existed.
+   * 
+   * @return true if there is a next line to be read, false otherwise
+   */
+  boolean hasNext();
+
+  /**
+   * Reads the next line.
+   * 
+   * @return a String contains the content of a line or null if no more line
+   * @throws IOException
+   *           if an I/O Exception happened during reading
+   */
+  String readLine() throws IOException;
+
+  /**
+   * Reads the next line into the given {@link LineSlice}.
+   * 
+   * @param slice
+   *          a {@link LineSlice} to be filled
+   * @return true if a line is read, false if no more line
+   * @throws IOException
+   *           if an I/O Exception happened during reading
+   */
+  boolean readLine(LineSlice slice) throws IOException;
+
+}
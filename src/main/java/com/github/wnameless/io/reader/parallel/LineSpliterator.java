@@ -0,0 +1,168 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 
+ * {@link LineSpliterator} is a {@link Spliterator} over lines within a byte
+ * range of a {@link File}. It is split by halving its byte range and moving
+ * the middle point forward to the next line start, so a parallel stream can
+ * divide a file without reading it beforehand. Like
+ * {@link java.nio.file.Files#lines(java.nio.file.Path)}, the estimated size is
+ * the number of remaining bytes because the number of lines is unknown until
+ * they are read.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class LineSpliterator implements Spliterator<String> {
+
+  static final long MIN_SPLIT_SIZE = 1L << 16;
+
+  private final Context context;
+  private final long minSplitSize;
+
+  private long start;
+  private final long end;
+  private LineReader lineReader;
+  private boolean done;
+
+  /**
+   * 
+   * {@link Context} holds resources shared by all {@link LineSpliterator}s
+   * split from the same root, and releases them when the stream is closed.
+   *
+   */
+  static final class Context implements Closeable {
+
+    private final File file;
+    private final Charset charset;
+    private final FileChannel channel;
+    private final long size;
+    private final Set<LineReader> openReaders =
+        Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    Context(File file, Charset charset) throws IOException {
+      this.file = file;
+      this.charset = charset;
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      size = channel.size();
+    }
+
+    long size() {
+      return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+      for (LineReader lineReader : openReaders) {
+        lineReader.closeQuietly();
+      }
+      openReaders.clear();
+      channel.close();
+    }
+
+  }
+
+  LineSpliterator(Context context, long start, long end, long minSplitSize) {
+    this.context = context;
+    this.start = start;
+    this.end = end;
+    this.minSplitSize = minSplitSize;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super String> action) {
+    if (done) return false;
+    if (lineReader == null) open();
+
+    String line = lineReader.readLineQuietly();
+    if (line == null) {
+      close();
+      return false;
+    }
+
+    action.accept(line);
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super String> action) {
+    if (done) return;
+    if (lineReader == null) open();
+
+    String line;
+    while ((line = lineReader.readLineQuietly()) != null) {
+      action.accept(line);
+    }
+    close();
+  }
+
+  private void open() {
+    lineReader = LineReaders.toMappedLineReader(context.file, context.charset,
+        start, end);
+    context.openReaders.add(lineReader);
+  }
+
+  private void close() {
+    done = true;
+    context.openReaders.remove(lineReader);
+    lineReader.closeQuietly();
+  }
+
+  @Override
+  public Spliterator<String> trySplit() {
+    if (lineReader != null || end - start < minSplitSize * 2) return null;
+
+    long mid;
+    try {
+      mid = LineBoundaries.nextLineStart(context.channel,
+          start + (end - start) / 2, context.size);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (mid <= start || mid >= end) return null;
+
+    Spliterator<String> prefix =
+        new LineSpliterator(context, start, mid, minSplitSize);
+    start = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return done ? 0 : end - start;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 
+ * {@link ListLineSource} provides lines which are already read into a
+ * {@link List}. A line read into a {@link LineSlice} is encoded as UTF-8
+ * bytes.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class ListLineSource implements LineSource {
+
+  private final List<String> lines;
+
+  private int index = 0;
+
+  ListLineSource(List<String> lines) {
+    this.lines = lines;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return index < lines.size();
+  }
+
+  @Override
+  public String readLine() {
+    if (index >= lines.size()) return null;
+
+    // Releases each line as soon as it has been read
+    return lines.set(index++, null);
+  }
+
+  @Override
+  public boolean readLine(LineSlice slice) {
+    String line = readLine();
+    if (line == null) return false;
+
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    slice.set(ByteBuffer.wrap(bytes), 0, bytes.length);
+    return true;
+  }
+
+  @Override
+  public void close() {
+    index = lines.size();
+  }
+
+}
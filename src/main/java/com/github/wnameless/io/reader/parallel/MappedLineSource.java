@@ -0,0 +1,217 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static com.github.wnameless.io.reader.parallel.LineBoundaries.CR;
+import static com.github.wnameless.io.reader.parallel.LineBoundaries.LF;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * 
+ * {@link MappedLineSource} provides lines within a byte range of a
+ * {@link FileChannel} by mapping the range into memory and finding line
+ * terminators directly in the mapped bytes. A range larger than the window
+ * size is mapped by several windows one after another.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class MappedLineSource implements LineSource {
+
+  static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+  private final FileChannel channel;
+  private final long end;
+  private final Charset charset;
+  private final long windowSize;
+
+  private long position;
+  private ByteBuffer window;
+  private long windowStart;
+
+  private byte[] scratch = new byte[128];
+  private ByteBuffer lineBuffer;
+  private int lineOffset;
+  private int lineLength;
+
+  MappedLineSource(FileChannel channel, long start, long end,
+      Charset charset, long windowSize) {
+    if (windowSize < 1 || windowSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Window size must be between 1 and " + Integer.MAX_VALUE);
+    }
+
+    this.channel = channel;
+    this.end = end;
+    this.charset = charset;
+    this.windowSize = windowSize;
+    position = start;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return position < end;
+  }
+
+  @Override
+  public String readLine() throws IOException {
+    if (!nextLine()) return null;
+
+    if (lineBuffer.hasArray()) {
+      return new String(lineBuffer.array(),
+          lineBuffer.arrayOffset() + lineOffset, lineLength, charset);
+    }
+
+    ensureScratch(lineLength);
+    copy(lineBuffer, lineOffset, scratch, 0, lineLength);
+    return new String(scratch, 0, lineLength, charset);
+  }
+
+  @Override
+  public boolean readLine(LineSlice slice) throws IOException {
+    if (!nextLine()) return false;
+
+    slice.set(lineBuffer, lineOffset, lineLength);
+    return true;
+  }
+
+  /**
+   * Moves to the next line and records where its bytes are.
+   * 
+   * @return true if a line is found, false otherwise
+   * @throws IOException
+   *           if an I/O Exception happened during mapping
+   */
+  private boolean nextLine() throws IOException {
+    if (position >= end) return false;
+
+    if (window == null || position < windowStart
+        || position >= windowStart + window.limit()) {
+      map(position);
+    }
+
+    int from = (int) (position - windowStart);
+    int limit = window.limit();
+    boolean lastWindow = windowStart + limit >= end;
+
+    int i = NewlineScanner.indexOfTerminator(window, from, limit);
+    if (i >= 0 && (window.get(i) == LF || i + 1 < limit || lastWindow)) {
+      int terminatorLength =
+          window.get(i) == CR && i + 1 < limit && window.get(i + 1) == LF ? 2
+              : 1;
+      setLine(window, from, i - from);
+      position = windowStart + i + terminatorLength;
+      return true;
+    }
+    if (i < 0 && lastWindow) {
+      setLine(window, from, limit - from);
+      position = end;
+      return true;
+    }
+
+    // The line crosses the window, so remaps the window from the line start
+    // unless the line is longer than a whole window
+    if (from > 0) {
+      map(position);
+      return nextLine();
+    }
+    return spillLine();
+  }
+
+  private boolean spillLine() throws IOException {
+    int length = 0;
+    boolean afterCR = false;
+
+    while (true) {
+      int from = (int) (position - windowStart);
+      int limit = window.limit();
+
+      if (afterCR) {
+        if (from < limit && window.get(from) == LF) position++;
+        break;
+      }
+
+      int i = NewlineScanner.indexOfTerminator(window, from, limit);
+      int stop = i < 0 ? limit : i;
+      ensureScratch(length + stop - from);
+      copy(window, from, scratch, length, stop - from);
+      length += stop - from;
+      position = windowStart + stop;
+
+      if (i >= 0) {
+        position++;
+        if (window.get(i) == LF) break;
+
+        afterCR = true;
+        if (i + 1 < limit) {
+          if (window.get(i + 1) == LF) position++;
+          break;
+        }
+      }
+
+      if (position >= end) break;
+      map(position);
+    }
+
+    setLine(ByteBuffer.wrap(scratch), 0, length);
+    return true;
+  }
+
+  private void map(long start) throws IOException {
+    windowStart = start;
+    window = channel.map(MapMode.READ_ONLY, start,
+        Math.min(windowSize, end - start));
+  }
+
+  private void setLine(ByteBuffer buffer, int offset, int length) {
+    lineBuffer = buffer;
+    lineOffset = offset;
+    lineLength = length;
+  }
+
+  /**
+   * Copies bytes of a {@link ByteBuffer} by absolute indexes in bulk, without
+   * moving the position of the buffer.
+   */
+  private static void copy(ByteBuffer src, int from, byte[] dst, int offset,
+      int length) {
+    ByteBuffer dup = src.duplicate();
+    dup.position(from);
+    dup.get(dst, offset, length);
+  }
+
+  private void ensureScratch(int capacity) {
+    if (scratch.length < capacity) {
+      scratch = Arrays.copyOf(scratch,
+          Math.max(capacity, (int) Math.min(Integer.MAX_VALUE - 8,
+              (long) scratch.length * 2)));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    lineBuffer = null;
+    channel.close();
+  }
+
+}
@@ -0,0 +1,198 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * 
+ * {@link MergeTree} combines partial results of partitions by a balanced
+ * binary tree of {@link CompletableFuture}s. Two neighboring partials are
+ * combined as soon as both of them are done, so the merging overlaps with the
+ * reading and a partial can be released once it is combined. Since only
+ * neighbors are combined, the order of partitions is kept for a
+ * non-commutative combiner.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class MergeTree {
+
+  private MergeTree() {}
+
+  /**
+   * Combines all partial results by a balanced binary tree.
+   * 
+   * @param <E>
+   *          the type of partial results
+   * @param partials
+   *          a list of {@link CompletableFuture}s in partition order
+   * @param identity
+   *          the result if there is no partial result
+   * @param combiner
+   *          a function to combine 2 neighboring partial results
+   * @return a {@link CompletableFuture} of the combined result
+   */
+  static <E> CompletableFuture<E> merge(List<CompletableFuture<E>> partials,
+      E identity, BinaryOperator<E> combiner) {
+    if (partials.isEmpty()) return CompletableFuture.completedFuture(identity);
+    return merge(partials, 0, partials.size(), combiner);
+  }
+
+  private static <E> CompletableFuture<E> merge(
+      List<CompletableFuture<E>> partials, int from, int to,
+      BinaryOperator<E> combiner) {
+    if (to - from == 1) return partials.get(from);
+
+    int mid = (from + to) >>> 1;
+    return merge(partials, from, mid, combiner)
+        .thenCombine(merge(partials, mid, to, combiner), combiner);
+  }
+
+  /**
+   * Creates a {@link LineReaderFunction} which folds all lines of a partition
+   * into a partial result, starting from the identity.
+   * 
+   * @param <U>
+   *          the type of partial results
+   * @param identity
+   *          the initial value of each partition
+   * @param accumulator
+   *          a function to fold a line into a partial result
+   * @return a {@link LineReaderFunction}
+   */
+  static <U> LineReaderFunction<U> reducing(U identity,
+      BiFunction<U, ? super String, U> accumulator) {
+    return (part, lineReader) -> {
+      try {
+        U result = identity;
+        while (lineReader.hasNext()) {
+          result = accumulator.apply(result, lineReader.readLineQuietly());
+        }
+        return result;
+      } finally {
+        lineReader.closeQuietly();
+      }
+    };
+  }
+
+  /**
+   * Creates a {@link LineReaderFunction} which accumulates all lines of a
+   * partition into a new container of the {@link Collector}.
+   * 
+   * @param <A>
+   *          the type of containers
+   * @param collector
+   *          a {@link Collector}
+   * @return a {@link LineReaderFunction}
+   */
+  static <A> LineReaderFunction<A> collecting(
+      Collector<? super String, A, ?> collector) {
+    BiConsumer<A, ? super String> accumulator = collector.accumulator();
+    return (part, lineReader) -> {
+      try {
+        A container = collector.supplier().get();
+        while (lineReader.hasNext()) {
+          accumulator.accept(container, lineReader.readLineQuietly());
+        }
+        return container;
+      } finally {
+        lineReader.closeQuietly();
+      }
+    };
+  }
+
+  /**
+   * Creates a {@link LineReaderFunction} which decodes the raw bytes of all
+   * lines of a partition by a new {@link LineDecoder} and accumulates decoded
+   * values into a new container of the {@link Collector}. Blank lines and null
+   * values are skipped.
+   * 
+   * @param <T>
+   *          the type of decoded values
+   * @param <A>
+   *          the type of containers
+   * @param decoders
+   *          a {@link Supplier} of {@link LineDecoder}s
+   * @param collector
+   *          a {@link Collector}
+   * @return a {@link LineReaderFunction}
+   */
+  static <T, A> LineReaderFunction<A> decoding(
+      Supplier<? extends LineDecoder<? extends T>> decoders,
+      Collector<? super T, A, ?> collector) {
+    BiConsumer<A, ? super T> accumulator = collector.accumulator();
+    return (part, lineReader) -> {
+      try {
+        LineDecoder<? extends T> decoder = decoders.get();
+        A container = collector.supplier().get();
+        LineSlice line = new LineSlice();
+        while (lineReader.readLineQuietly(line)) {
+          if (isBlank(line)) continue;
+
+          T value = decoder.decode(line);
+          if (value != null) accumulator.accept(container, value);
+        }
+        return container;
+      } finally {
+        lineReader.closeQuietly();
+      }
+    };
+  }
+
+  private static boolean isBlank(LineSlice line) {
+    for (int i = 0; i < line.getLength(); i++) {
+      byte b = line.byteAt(i);
+      if (b != ' ' && b != '\t') return false;
+    }
+    return true;
+  }
+
+  /**
+   * Combines all containers of a {@link Collector} by a balanced binary tree
+   * and applies the finisher.
+   * 
+   * @param <A>
+   *          the type of containers
+   * @param <R>
+   *          the type of the result
+   * @param partials
+   *          a list of {@link CompletableFuture}s in partition order
+   * @param collector
+   *          a {@link Collector}
+   * @return a {@link CompletableFuture} of the collected result
+   */
+  @SuppressWarnings("unchecked")
+  static <A, R> CompletableFuture<R> finish(
+      List<CompletableFuture<A>> partials, Collector<?, A, R> collector) {
+    CompletableFuture<A> merged = partials.isEmpty()
+        ? CompletableFuture.completedFuture(collector.supplier().get())
+        : merge(partials, null, collector.combiner());
+
+    if (collector.characteristics()
+        .contains(Collector.Characteristics.IDENTITY_FINISH)) {
+      return (CompletableFuture<R>) merged;
+    }
+    return merged.thenApply(collector.finisher());
+  }
+
+}
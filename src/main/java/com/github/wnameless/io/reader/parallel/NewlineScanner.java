@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 
+ * {@link NewlineScanner} finds LF and CR bytes in a {@link ByteBuffer} 8 bytes
+ * at a time. Each 8 bytes are packed into a long and tested by SWAR (SIMD
+ * within a register) arithmetic, and the remaining bytes are tested one by
+ * one.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class NewlineScanner {
+
+  private static final long LFS = 0x0A0A0A0A0A0A0A0AL;
+  private static final long CRS = 0x0D0D0D0D0D0D0D0DL;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+  private NewlineScanner() {}
+
+  /**
+   * Finds the first LF or CR byte within [from, to) of a {@link ByteBuffer}
+   * by absolute indexes.
+   * 
+   * @param buffer
+   *          a {@link ByteBuffer}
+   * @param from
+   *          the index to start from, inclusive
+   * @param to
+   *          the index to stop at, exclusive
+   * @return the index of the byte or -1 if not found
+   */
+  static int indexOfTerminator(ByteBuffer buffer, int from, int to) {
+    boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      long mask = terminatorMask(buffer.getLong(i));
+      if (mask != 0) {
+        return i + ((bigEndian ? Long.numberOfLeadingZeros(mask)
+            : Long.numberOfTrailingZeros(mask)) >>> 3);
+      }
+    }
+
+    for (; i < to; i++) {
+      byte b = buffer.get(i);
+      if (b == LineBoundaries.LF || b == LineBoundaries.CR) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Computes a mask which has the high bit set in every byte of the given word
+   * which is a LF or a CR. The mask is exact, so it can be read from either
+   * end of the word.
+   * 
+   * @param word
+   *          8 bytes packed in a long
+   * @return a mask of matched bytes
+   */
+  static long terminatorMask(long word) {
+    return zeroBytes(word ^ LFS) | zeroBytes(word ^ CRS);
+  }
+
+  private static long zeroBytes(long v) {
+    return ~(((v & LOW7) + LOW7) | v | LOW7);
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 
+ * {@link ParallelCsvReader} reads CSV records by dividing a file into byte
+ * ranges and then reads all ranges parallelly by a thread {@link Executor}.
+ * Each range boundary is moved to a record boundary, so quoted fields which
+ * contain line terminators are never split.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public class ParallelCsvReader {
+
+  private final File file;
+  private final Charset charset;
+  private final int partitions;
+
+  private final Executor executor;
+
+  private char delimiter = ',';
+
+  /**
+   * Creates a {@link ParallelCsvReader} by given {@link File}, {@link Charset}
+   * and {@link Executor}.
+   * 
+   * @param partitions
+   *          the number of byte ranges of the file
+   * @param file
+   *          which contains records
+   * @param charset
+   *          an ASCII compatible {@link Charset} of the file
+   * @param executor
+   *          a Java {@link Executor}
+   */
+  public ParallelCsvReader(int partitions, File file, Charset charset,
+      Executor executor) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("Partitions must be positive");
+    }
+    LineBoundaries.checkCharset(charset);
+
+    this.file = file;
+    this.charset = charset;
+    this.partitions = partitions;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates a {@link ParallelCsvReader} by given {@link File} and
+   * {@link Charset}.
+   * 
+   * @param partitions
+   *          the number of byte ranges of the file
+   * @param file
+   *          which contains records
+   * @param charset
+   *          an ASCII compatible {@link Charset} of the file
+   */
+  public ParallelCsvReader(int partitions, File file, Charset charset) {
+    this(partitions, file, charset, null);
+  }
+
+  /**
+   * Creates a {@link ParallelCsvReader} by given {@link File} and
+   * {@link Charset} with one byte range for each available processor.
+   * 
+   * @param file
+   *          which contains records
+   * @param charset
+   *          an ASCII compatible {@link Charset} of the file
+   */
+  public ParallelCsvReader(File file, Charset charset) {
+    this(Runtime.getRuntime().availableProcessors(), file, charset);
+  }
+
+  /**
+   * Returns the delimiter of fields.
+   * 
+   * @return the delimiter, comma by default
+   */
+  public char getDelimiter() {
+    return delimiter;
+  }
+
+  /**
+   * Sets the delimiter of fields.
+   * 
+   * @param delimiter
+   *          an ASCII character other than quote and line terminators
+   */
+  public void setDelimiter(char delimiter) {
+    CsvRecordReader.checkDelimiter(delimiter);
+    this.delimiter = delimiter;
+  }
+
+  /**
+   * Finds out the record boundaries of the file. Byte ranges are scanned
+   * parallelly by the same rules as {@link CsvRecordReader}, so a boundary is
+   * never inside a quoted field. A malformed file which ends inside a quoted
+   * field is not divided.
+   * 
+   * @return a complete {@link PartitionPlan} of record boundaries
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public PartitionPlan getRecordPoints() throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return CsvBoundaries.recordPoints(channel,
+          LineBoundaries.skipBom(channel, 0, charset), channel.size(),
+          partitions, delimiter,
+          executor == null ? ForkJoinPool.commonPool() : executor);
+    }
+  }
+
+  /**
+   * Creates {@link CompletableFuture}s for each part of the file.
+   * 
+   * @param <E>
+   *          the result type of each {@link CompletableFuture}
+   * @param csvRecordFunction
+   *          a function to process each part of the file which is read by a
+   *          {@link CsvRecordReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public <E> List<CompletableFuture<E>> readParallelly(
+      CsvRecordFunction<E> csvRecordFunction) throws IOException {
+    Executor exec = executor == null ? ForkJoinPool.commonPool() : executor;
+    long[] points = getRecordPoints().toArray();
+    long length = file.length();
+    char delim = delimiter;
+
+    List<CompletableFuture<E>> futures = new ArrayList<>(points.length);
+    for (int i = 0; i < points.length; i++) {
+      int part = i;
+      long start = points[i];
+      long end = i + 1 < points.length ? points[i + 1] : length;
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        CsvRecordReader reader =
+            new CsvRecordReader(file, charset, start, end, delim);
+        try {
+          return csvRecordFunction.apply(part, reader);
+        } finally {
+          reader.closeQuietly();
+        }
+      }, exec));
+    }
+
+    return futures;
+  }
+
+}
@@ -15,12 +15,27 @@
  */
 package com.github.wnameless.io.reader.parallel;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 /**
  * 
@@ -33,10 +48,15 @@ import java.util.function.Supplier;
 public class ParallelLineReader {
 
   private final Supplier<? extends Reader> reader;
+  private final File file;
+  private final Charset charset;
   private final int maxLines;
 
   private final Executor executor;
 
+  private ReadListener listener = ReadListener.NOOP;
+  private File checkpointFile;
+
   /**
    * Creates a {@link ParallelLineReader} by given {@link Reader} and
    * {@link Executor}.
@@ -51,6 +71,8 @@ public class ParallelLineReader {
   public ParallelLineReader(int maxLines, Supplier<? extends Reader> reader,
       Executor executor) {
     this.reader = reader;
+    file = null;
+    charset = null;
     this.maxLines = maxLines;
     this.executor = executor;
   }
@@ -65,10 +87,136 @@ public class ParallelLineReader {
    */
   public ParallelLineReader(int maxLines, Supplier<? extends Reader> reader) {
     this.reader = reader;
+    file = null;
+    charset = null;
+    this.maxLines = maxLines;
+    executor = null;
+  }
+
+  /**
+   * Creates a {@link ParallelLineReader} by given {@link Reader} which reads
+   * all parts on an I/O {@link Executor} created by
+   * {@link IoExecutors#newIoExecutor(int)}.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param reader
+   *          a {@link Supplier} can provide {@link Reader}s of certain content
+   * @param ioPermits
+   *          the max number of parts which can be read at the same time
+   */
+  public ParallelLineReader(int maxLines, Supplier<? extends Reader> reader,
+      int ioPermits) {
+    this(maxLines, reader, IoExecutors.newIoExecutor(ioPermits));
+  }
+
+  /**
+   * Creates a {@link ParallelLineReader} by given {@link File},
+   * {@link Charset} and {@link Executor}.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param executor
+   *          a Java {@link Executor}
+   */
+  public ParallelLineReader(int maxLines, File file, Charset charset,
+      Executor executor) {
+    reader = null;
+    this.file = file;
+    this.charset = charset;
+    this.maxLines = maxLines;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates a {@link ParallelLineReader} by given {@link File} and
+   * {@link Charset}.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   */
+  public ParallelLineReader(int maxLines, File file, Charset charset) {
+    reader = null;
+    this.file = file;
+    this.charset = charset;
     this.maxLines = maxLines;
     executor = null;
   }
 
+  /**
+   * Creates a {@link ParallelLineReader} by given {@link File} and
+   * {@link Charset} which reads all parts on an I/O {@link Executor} created by
+   * {@link IoExecutors#newIoExecutor(int)}.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param ioPermits
+   *          the max number of parts which can be read at the same time
+   */
+  public ParallelLineReader(int maxLines, File file, Charset charset,
+      int ioPermits) {
+    this(maxLines, file, charset, IoExecutors.newIoExecutor(ioPermits));
+  }
+
+  /**
+   * Returns the {@link ReadListener} of {@link #readParallelly}.
+   * 
+   * @return a {@link ReadListener}, {@link ReadListener#NOOP} by default
+   */
+  public ReadListener getReadListener() {
+    return listener;
+  }
+
+  /**
+   * Sets a {@link ReadListener} to receive the events of
+   * {@link #readParallelly} and all methods based on it.
+   * 
+   * @param listener
+   *          a {@link ReadListener}, or null to remove the current one
+   */
+  public void setReadListener(ReadListener listener) {
+    this.listener = listener == null ? ReadListener.NOOP : listener;
+  }
+
+  /**
+   * Returns the journal file of the {@link CheckpointJournal} of
+   * {@link #readParallelly}.
+   * 
+   * @return the journal file, or null if no checkpoint is written
+   */
+  public File getCheckpointFile() {
+    return checkpointFile;
+  }
+
+  /**
+   * Sets a journal file to make {@link #readParallelly} of a {@link File}
+   * resumable. Each finished part is recorded in the journal, and a rerun of
+   * the same plan skips the parts finished before. Results of skipped parts
+   * are null.
+   * 
+   * @param checkpointFile
+   *          a journal file, such as
+   *          {@link CheckpointJournal#getJournalFile(File)}, or null to stop
+   *          writing checkpoints
+   * @see LineReaders#readParallellyCheckpointed(File, Charset, int,
+   *      LineReaderFunction, Executor, File)
+   */
+  public void setCheckpointFile(File checkpointFile) {
+    this.checkpointFile = checkpointFile;
+  }
+
   /**
    * Creates {@link CompletableFuture}s for each part of input content.
    * 
@@ -83,6 +231,33 @@ public class ParallelLineReader {
    */
   public <E> List<CompletableFuture<E>> readParallelly(
       LineReaderFunction<E> lineReaderFunction) throws IOException {
+    if (file != null && checkpointFile != null) {
+      return LineReaders.readParallellyCheckpointed(file, charset, maxLines,
+          lineReaderFunction,
+          executor == null ? ForkJoinPool.commonPool() : executor,
+          checkpointFile, listener);
+    }
+
+    if (listener != ReadListener.NOOP) {
+      Executor exec = executor == null ? ForkJoinPool.commonPool() : executor;
+      if (file != null) {
+        return LineReaders.readParallelly(file, charset, maxLines,
+            lineReaderFunction, exec, listener);
+      }
+      return LineReaders.readParallelly(reader, maxLines, lineReaderFunction,
+          exec, listener);
+    }
+
+    if (file != null) {
+      if (executor == null) {
+        return LineReaders.readParallelly(file, charset, maxLines,
+            lineReaderFunction);
+      } else {
+        return LineReaders.readParallelly(file, charset, maxLines,
+            lineReaderFunction, executor);
+      }
+    }
+
     if (executor == null) {
       return LineReaders.readParallelly(reader, maxLines,
           lineReaderFunction);
@@ -92,4 +267,247 @@ public class ParallelLineReader {
     }
   }
 
+  /**
+   * Creates {@link CompletableFuture}s for each part of input content, and
+   * submits each part as soon as its end is found instead of after the whole
+   * input is scanned. Input which is not a file is always read in a single
+   * pass, which is pipelined already.
+   * 
+   * @param <E>
+   *          the result type of each {@link CompletableFuture}
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see LineReaders#readParallellyPipelined(File, Charset, int,
+   *      LineReaderFunction, Executor, ReadListener)
+   */
+  public <E> List<CompletableFuture<E>> readParallellyPipelined(
+      LineReaderFunction<E> lineReaderFunction) throws IOException {
+    if (file == null) return readParallellyInSinglePass(lineReaderFunction);
+
+    return LineReaders.readParallellyPipelined(file, charset, maxLines,
+        lineReaderFunction,
+        executor == null ? ForkJoinPool.commonPool() : executor, listener);
+  }
+
+  /**
+   * Reads all parts of input content parallelly, but keeps at most the given
+   * number of parts open at the same time.
+   * 
+   * @param <E>
+   *          the type of the result of each part
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param maxInFlight
+   *          the max number of parts which are started but not taken
+   * @param ordered
+   *          true to return results in the order of parts, false to return
+   *          results in the order of completion
+   * @return a sequential {@link Stream} of the results of all parts
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see LineReaders#readParallellyBounded(File, Charset, int,
+   *      LineReaderFunction, Executor, int, boolean)
+   */
+  public <E> Stream<E> readParallellyBounded(
+      LineReaderFunction<E> lineReaderFunction, int maxInFlight,
+      boolean ordered) throws IOException {
+    return readParallellyBounded(lineReaderFunction, maxInFlight, maxInFlight,
+        ordered);
+  }
+
+  /**
+   * Reads all parts of input content parallelly, but keeps at most the given
+   * number of parts open at the same time and at most the given number of
+   * results pending.
+   * 
+   * @param <E>
+   *          the type of the result of each part
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param maxInFlight
+   *          the max number of parts which are started but not finished
+   * @param maxPending
+   *          the max number of parts which are started but not taken, no less
+   *          than the max in-flight
+   * @param ordered
+   *          true to return results in the order of parts, false to return
+   *          results in the order of completion
+   * @return a sequential {@link Stream} of the results of all parts
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see LineReaders#readParallellyBounded(File, Charset, int,
+   *      LineReaderFunction, Executor, int, int, boolean)
+   */
+  public <E> Stream<E> readParallellyBounded(
+      LineReaderFunction<E> lineReaderFunction, int maxInFlight,
+      int maxPending, boolean ordered) throws IOException {
+    Executor exec = executor == null ? ForkJoinPool.commonPool() : executor;
+
+    if (file != null) {
+      return LineReaders.readParallellyBounded(file, charset, maxLines,
+          lineReaderFunction, exec, maxInFlight, maxPending, ordered);
+    }
+    return LineReaders.readParallellyBounded(reader, maxLines,
+        lineReaderFunction, exec, maxInFlight, maxPending, ordered);
+  }
+
+  /**
+   * Reads all parts of input content parallelly, and hands the result of each
+   * part to the consumer in the order of parts on the current thread.
+   * 
+   * @param <E>
+   *          the type of the result of each part
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @param consumer
+   *          to receive the result of each part in order
+   * @param window
+   *          the max number of parts which are started but not consumed
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see LineReaders#readParallellyOrdered(File, Charset, int,
+   *      LineReaderFunction, Consumer, Executor, int)
+   */
+  public <E> void readParallellyOrdered(
+      LineReaderFunction<E> lineReaderFunction, Consumer<? super E> consumer,
+      int window) throws IOException {
+    try (Stream<E> results =
+        readParallellyBounded(lineReaderFunction, window, true)) {
+      results.forEachOrdered(consumer);
+    }
+  }
+
+  /**
+   * Transforms lines of input content parallelly and writes transformed lines
+   * to the {@link Writer} in the original order. Each line is followed by a
+   * line feed, and lines which are transformed into null are dropped.
+   * 
+   * @param mapper
+   *          a function to transform each line
+   * @param writer
+   *          to receive transformed lines in order
+   * @param window
+   *          the max number of parts which are started but not written
+   * @throws IOException
+   *           if any I/O Exception happened during reading or writing
+   * @see LineReaders#transformParallelly(File, Charset, int, Function, Writer,
+   *      Executor, int)
+   */
+  public void transformParallelly(
+      Function<? super String, ? extends CharSequence> mapper, Writer writer,
+      int window) throws IOException {
+    try (Stream<StringBuilder> results = readParallellyBounded(
+        LineReaders.transforming(mapper), window, true)) {
+      LineReaders.writeAll(results, writer);
+    }
+  }
+
+  /**
+   * Reduces lines of input content parallelly. Each part folds its lines into a
+   * partial result starting from the identity, and partial results are
+   * combined pairwise by a balanced tree as soon as neighboring parts are
+   * finished.
+   * 
+   * @param <U>
+   *          the type of the result
+   * @param identity
+   *          the initial value of each part
+   * @param accumulator
+   *          a function to fold a line into a partial result
+   * @param combiner
+   *          a function to combine 2 partial results
+   * @return a {@link CompletableFuture} of the reduced result
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public <U> CompletableFuture<U> reduce(U identity,
+      BiFunction<U, ? super String, U> accumulator, BinaryOperator<U> combiner)
+      throws IOException {
+    return MergeTree.merge(
+        readParallelly(MergeTree.reducing(identity, accumulator)), identity,
+        combiner);
+  }
+
+  /**
+   * Collects lines of input content parallelly by a {@link Collector}. Each
+   * part accumulates its lines into a new container, and containers are
+   * combined pairwise by a balanced tree as soon as neighboring parts are
+   * finished.
+   * 
+   * @param <A>
+   *          the mutable accumulation type of the {@link Collector}
+   * @param <R>
+   *          the type of the result
+   * @param collector
+   *          a {@link Collector}
+   * @return a {@link CompletableFuture} of the collected result
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  public <A, R> CompletableFuture<R> collect(
+      Collector<? super String, A, R> collector) throws IOException {
+    return MergeTree.finish(readParallelly(MergeTree.collecting(collector)),
+        collector);
+  }
+
+  /**
+   * Creates a parallel {@link Stream} of all lines of input content. A
+   * {@link File} is split by byte ranges at line starts, see
+   * {@link LineReaders#lines(File, Charset)}. A {@link Reader} can only be read
+   * sequentially, so its lines are split in batches by the stream framework.
+   * The returned stream should be closed to release all opened resources.
+   * 
+   * @return a parallel {@link Stream} of lines
+   * @throws IOException
+   *           if any I/O Exception happened during opening the input
+   */
+  public Stream<String> stream() throws IOException {
+    if (file != null) return LineReaders.lines(file, charset).parallel();
+
+    BufferedReader br = new BufferedReader(reader.get());
+    return br.lines().parallel().onClose(() -> {
+      try {
+        br.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Creates {@link CompletableFuture}s for each part of input content by
+   * reading the content only once. Every max number of lines are handed to a
+   * worker as soon as they are read.
+   * 
+   * @param <E>
+   *          the result type of each {@link CompletableFuture}
+   * @param lineReaderFunction
+   *          a function to process each part of the content which is read by a
+   *          {@link LineReader}
+   * @return a list of {@link CompletableFuture}s
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   * @see LineReaders#readParallelly(Reader, int, LineReaderFunction, Executor)
+   */
+  public <E> List<CompletableFuture<E>> readParallellyInSinglePass(
+      LineReaderFunction<E> lineReaderFunction) throws IOException {
+    return LineReaders.readParallelly(file == null ? reader.get() : openFile(),
+        maxLines, lineReaderFunction,
+        executor == null ? ForkJoinPool.commonPool() : executor);
+  }
+
+  private Reader openFile() throws IOException {
+    FileInputStream fis = new FileInputStream(file);
+    FileChannel channel = fis.getChannel();
+    channel.position(LineBoundaries.skipBom(channel, 0, charset));
+    return new InputStreamReader(fis, charset);
+  }
+
 }
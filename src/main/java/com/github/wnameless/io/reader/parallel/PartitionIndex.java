@@ -0,0 +1,284 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 
+ * {@link PartitionIndex} records the byte offset of every N-th line of a file,
+ * so partition points of any max number of lines can be derived without
+ * scanning the whole file again. An index can be saved as a sidecar file next
+ * to the indexed file, and it is reused as long as the size, the last
+ * modified time and the {@link Charset} of the file are unchanged.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class PartitionIndex {
+
+  /**
+   * The extension of a sidecar index file.
+   */
+  public static final String FILE_EXTENSION = ".plr-idx";
+
+  /**
+   * The default number of lines between 2 recorded line offsets.
+   */
+  public static final int DEFAULT_SAMPLE_INTERVAL = 1000;
+
+  private static final int MAGIC = 0x504C5249; // PLRI
+  private static final int VERSION = 2;
+
+  private final long lastModified;
+  private final String charset;
+  private final LineIndex lineIndex;
+
+  private PartitionIndex(long lastModified, String charset,
+      LineIndex lineIndex) {
+    this.lastModified = lastModified;
+    this.charset = charset;
+    this.lineIndex = lineIndex;
+  }
+
+  /**
+   * Returns the sidecar index file of given {@link File}.
+   * 
+   * @param file
+   *          which is indexed
+   * @return the sidecar index file
+   */
+  public static File getIndexFile(File file) {
+    return new File(file.getPath() + FILE_EXTENSION);
+  }
+
+  /**
+   * Builds a {@link PartitionIndex} by scanning the whole file parallelly, see
+   * {@link LineIndex#build(File, Charset, int)}.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param sampleInterval
+   *          the number of lines between 2 recorded line offsets
+   * @return a {@link PartitionIndex}
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   */
+  public static PartitionIndex build(File file, Charset charset,
+      int sampleInterval) throws IOException {
+    long lastModified = file.lastModified();
+    return new PartitionIndex(lastModified, charset.name(),
+        LineIndex.build(file, charset, sampleInterval));
+  }
+
+  /**
+   * Loads the sidecar index of given {@link File} if it exists and is still
+   * valid for the file.
+   * 
+   * @param file
+   *          which is indexed
+   * @param charset
+   *          the {@link Charset} of the file
+   * @return a {@link PartitionIndex} or null if no valid index is found
+   */
+  public static PartitionIndex load(File file, Charset charset) {
+    File indexFile = getIndexFile(file);
+    if (!indexFile.isFile()) return null;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(indexFile.toPath())))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+
+      long fileSize = in.readLong();
+      long lastModified = in.readLong();
+      String charsetName = in.readUTF();
+      int sampleInterval = in.readInt();
+      long lineCount = in.readLong();
+      int count = in.readInt();
+      if (count < 1 || count > indexFile.length() / 8) return null;
+      long[] lineOffsets = new long[count];
+      for (int i = 0; i < lineOffsets.length; i++) {
+        lineOffsets[i] = in.readLong();
+      }
+      if (!isConsistent(fileSize, sampleInterval, lineCount, lineOffsets)) {
+        return null;
+      }
+
+      PartitionIndex index = new PartitionIndex(lastModified, charsetName,
+          new LineIndex(file, charset, fileSize, sampleInterval, lineCount,
+              lineOffsets));
+      return index.isValidFor(file, charset) ? index : null;
+    } catch (IOException | RuntimeException e) {
+      // A broken index is treated as no index
+      return null;
+    }
+  }
+
+  /**
+   * Checks if loaded line offsets can be produced by
+   * {@link LineIndex#build(File, Charset, int)}. The offsets start from 0 and
+   * increase within the file, and the line count falls into the last sample.
+   */
+  private static boolean isConsistent(long fileSize, int sampleInterval,
+      long lineCount, long[] lineOffsets) {
+    if (fileSize < 0 || sampleInterval < 1 || lineOffsets[0] != 0) {
+      return false;
+    }
+    for (int i = 1; i < lineOffsets.length; i++) {
+      if (lineOffsets[i] <= lineOffsets[i - 1]
+          || lineOffsets[i] >= fileSize) {
+        return false;
+      }
+    }
+
+    if (fileSize == 0) return lineOffsets.length == 1 && lineCount == 0;
+    long sampled = (long) (lineOffsets.length - 1) * sampleInterval;
+    return lineCount > sampled && lineCount <= sampled + sampleInterval;
+  }
+
+  /**
+   * Loads the sidecar index of given {@link File} if it is still valid,
+   * otherwise builds a new one and saves it as the sidecar index. Failing to
+   * save the index does not fail this method because the index is only an
+   * optimization.
+   * 
+   * @param file
+   *          which contains lines
+   * @param charset
+   *          the {@link Charset} of the file
+   * @param sampleInterval
+   *          the number of lines between 2 recorded line offsets of a new
+   *          index
+   * @return a {@link PartitionIndex}
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   */
+  public static PartitionIndex getOrBuild(File file, Charset charset,
+      int sampleInterval) throws IOException {
+    PartitionIndex index = load(file, charset);
+    if (index != null) return index;
+
+    index = build(file, charset, sampleInterval);
+    try {
+      index.save();
+    } catch (IOException e) {}
+    return index;
+  }
+
+  /**
+   * Saves this index as the sidecar index of the indexed file.
+   * 
+   * @throws IOException
+   *           if any I/O Exception happened during writing
+   */
+  public void save() throws IOException {
+    Path target = getIndexFile(lineIndex.getFile()).toPath();
+    Path temp = Files.createTempFile(target.toAbsolutePath().getParent(),
+        target.getFileName().toString(), ".tmp");
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(lineIndex.getFileSize());
+      out.writeLong(lastModified);
+      out.writeUTF(charset);
+      out.writeInt(lineIndex.getSampleInterval());
+      out.writeLong(lineIndex.getLineCount());
+      out.writeInt(lineIndex.getLineOffsets().length);
+      for (long offset : lineIndex.getLineOffsets()) {
+        out.writeLong(offset);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Checks if this index is still valid for the given {@link File}.
+   * 
+   * @param file
+   *          which is indexed
+   * @param charset
+   *          the {@link Charset} of the file
+   * @return true if the size, the last modified time and the {@link Charset}
+   *         are unchanged, false otherwise
+   */
+  public boolean isValidFor(File file, Charset charset) {
+    return file.length() == lineIndex.getFileSize()
+        && file.lastModified() == lastModified
+        && charset.name().equals(this.charset);
+  }
+
+  /**
+   * Returns the {@link LineIndex} behind this index, which also provides
+   * random access to lines.
+   * 
+   * @return a {@link LineIndex}
+   */
+  public LineIndex getLineIndex() {
+    return lineIndex;
+  }
+
+  /**
+   * Returns the number of lines of the indexed file.
+   * 
+   * @return the number of lines
+   */
+  public long getLineCount() {
+    return lineIndex.getLineCount();
+  }
+
+  /**
+   * Returns the number of lines between 2 recorded line offsets.
+   * 
+   * @return the sample interval
+   */
+  public int getSampleInterval() {
+    return lineIndex.getSampleInterval();
+  }
+
+  /**
+   * Derives partition points of the indexed file based on the given max line
+   * number. The result is the same as
+   * {@link LineReaders#getPartitionPoints(File, Charset, int)}.
+   * 
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @return a complete {@link PartitionPlan} starts from 0
+   * @throws IOException
+   *           if any I/O Exception happened during scanning
+   * @see LineIndex#getPartitionPlan(int)
+   */
+  public PartitionPlan getPartitionPlan(int maxLines) throws IOException {
+    return lineIndex.getPartitionPlan(maxLines);
+  }
+
+}
@@ -0,0 +1,266 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+
+/**
+ * 
+ * {@link PartitionPlan} holds partition points in a growing primitive array
+ * instead of boxed Longs. A plan can be filled by a scanning thread while other
+ * threads consume it, so partitions can be processed before the scan is
+ * finished. Points are appended by a single producer and can be read by any
+ * number of consumers without locking. The producer only takes the lock to
+ * wake up consumers when any of them is waiting.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class PartitionPlan implements Iterable<Long> {
+
+  private final Object lock = new Object();
+
+  private volatile long[] points = new long[16];
+  private volatile int size = 0;
+  private volatile boolean complete = false;
+  private volatile Throwable failure;
+  private volatile int waiters = 0;
+
+  PartitionPlan() {}
+
+  /**
+   * Appends a point. Only one thread may append points to a plan.
+   * 
+   * @param point
+   *          a partition point
+   */
+  void add(long point) {
+    long[] array = points;
+    if (size == array.length) {
+      array = Arrays.copyOf(array, array.length * 2);
+      points = array;
+    }
+    array[size] = point;
+    size++;
+
+    // A waiter registers itself before it checks the size, so either it sees
+    // the new size or the producer sees the waiter here
+    if (waiters > 0) {
+      synchronized (lock) {
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Marks this plan as complete, no more point is appended after it.
+   */
+  void complete() {
+    synchronized (lock) {
+      complete = true;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Marks this plan as failed, no more point is appended after it.
+   * 
+   * @param failure
+   *          the cause of the failure
+   */
+  void fail(Throwable failure) {
+    synchronized (lock) {
+      this.failure = failure;
+      complete = true;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Returns the number of points which are found so far.
+   * 
+   * @return the number of points
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if all points are found.
+   * 
+   * @return true if the plan is complete, false otherwise
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Returns a point which is already found.
+   * 
+   * @param index
+   *          the index of a point
+   * @return the partition point
+   * @throws IndexOutOfBoundsException
+   *           if the point is not found yet
+   */
+  public long get(int index) {
+    int n = size;
+    if (index < 0 || index >= n) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + n);
+    }
+    return points[index];
+  }
+
+  /**
+   * Waits until the given point is found or the plan is complete.
+   * 
+   * @param index
+   *          the index of a point
+   * @return true if the point exists, false if the plan is complete without it
+   * @throws IOException
+   *           if the scan is failed or the waiting is interrupted
+   */
+  public boolean await(int index) throws IOException {
+    if (index < size) return true;
+
+    synchronized (lock) {
+      waiters++;
+      try {
+        while (index >= size && !complete) {
+          lock.wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } finally {
+        waiters--;
+      }
+    }
+
+    if (index < size) return true;
+    if (failure != null) {
+      throw failure instanceof IOException ? (IOException) failure
+          : new IOException(failure);
+    }
+    return false;
+  }
+
+  /**
+   * Waits until all points are found.
+   * 
+   * @return this plan
+   * @throws IOException
+   *           if the scan is failed or the waiting is interrupted
+   */
+  public PartitionPlan awaitComplete() throws IOException {
+    await(Integer.MAX_VALUE);
+    return this;
+  }
+
+  /**
+   * Returns a copy of the points which are found so far.
+   * 
+   * @return an array of partition points
+   */
+  public long[] toArray() {
+    int n = size;
+    return Arrays.copyOf(points, n);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} view of the points which are found
+   * so far. Points are boxed only when they are read from the list.
+   * 
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   */
+  public List<Long> asList() {
+    int n = size;
+    long[] array = points;
+    return new PointList(array, n);
+  }
+
+  /**
+   * Returns an iterator which waits for each point until the plan is
+   * complete, so the points can be consumed while they are being found. A
+   * failure of the scan is thrown as an {@link UncheckedIOException}.
+   * 
+   * @return a {@link PrimitiveIterator.OfLong}
+   */
+  @Override
+  public PrimitiveIterator.OfLong iterator() {
+    return new PrimitiveIterator.OfLong() {
+
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        try {
+          return await(next);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public long nextLong() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return get(next++);
+      }
+
+    };
+  }
+
+  @Override
+  public String toString() {
+    return asList().toString();
+  }
+
+  private static final class PointList extends AbstractList<Long>
+      implements RandomAccess {
+
+    private final long[] points;
+    private final int size;
+
+    PointList(long[] points, int size) {
+      this.points = points;
+      this.size = size;
+    }
+
+    @Override
+    public Long get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException(
+            "Index: " + index + ", Size: " + size);
+      }
+      return points[index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+  }
+
+}
@@ -0,0 +1,145 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 
+ * {@link PartitionScanner} finds out exact partition points of a
+ * {@link FileChannel} parallelly. The channel is divided into byte blocks and
+ * line terminators of each block are counted parallelly. The counts are
+ * prefix-summed into the line number at the beginning of each block, and then
+ * the blocks which contain partition points are scanned parallelly again to
+ * locate the exact offsets.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class PartitionScanner {
+
+  static final long DEFAULT_BLOCK_SIZE = 8L << 20;
+
+  private PartitionScanner() {}
+
+  /**
+   * Finds out all partition points of a {@link FileChannel} parallelly. The
+   * result is the same as
+   * {@link LineBoundaries#partitionPoints(FileChannel, long, int)}.
+   * 
+   * @param channel
+   *          a {@link FileChannel}
+   * @param size
+   *          the size of the channel
+   * @param maxLines
+   *          the max number of lines of each parts
+   * @param blockSize
+   *          the bytes of each block
+   * @param executor
+   *          a Java {@link Executor} to use
+   * @return a list of Long numbers represents lengths of bytes start from 0
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  static List<Long> partitionPoints(FileChannel channel, long size,
+      int maxLines, long blockSize, Executor executor) throws IOException {
+    int blocks = (int) Math.max(1, (size + blockSize - 1) / blockSize);
+    if (blocks == 1) {
+      return LineBoundaries.partitionPoints(channel, size, maxLines);
+    }
+
+    List<CompletableFuture<Long>> counts = new ArrayList<>(blocks);
+    for (int i = 0; i < blocks; i++) {
+      long from = i * blockSize;
+      long to = Math.min(size, from + blockSize);
+      counts.add(CompletableFuture.supplyAsync(() -> {
+        long[] count = new long[1];
+        scan(channel, from, to, size, lineEnd -> {
+          count[0]++;
+          return true;
+        });
+        return count[0];
+      }, executor));
+    }
+
+    // Line numbers before each block
+    long[] lineNums = new long[blocks + 1];
+    for (int i = 0; i < blocks; i++) {
+      lineNums[i + 1] = lineNums[i] + Futures.join(counts.get(i));
+    }
+
+    List<CompletableFuture<PartitionPlan>> found = new ArrayList<>();
+    for (int i = 0; i < blocks; i++) {
+      long before = lineNums[i];
+      if (before / maxLines == lineNums[i + 1] / maxLines) continue;
+
+      long from = i * blockSize;
+      long to = Math.min(size, from + blockSize);
+      found.add(CompletableFuture.supplyAsync(() -> {
+        PartitionPlan points = new PartitionPlan();
+        long[] lineNum = new long[] { before };
+        scan(channel, from, to, size, lineEnd -> {
+          if (++lineNum[0] % maxLines == 0) points.add(lineEnd);
+          return true;
+        });
+        return points;
+      }, executor));
+    }
+
+    PartitionPlan points = new PartitionPlan();
+    points.add(0L);
+    for (CompletableFuture<PartitionPlan> f : found) {
+      for (long point : Futures.join(f).toArray()) {
+        points.add(point);
+      }
+    }
+
+    // The last line without a terminator
+    if (!endsWithTerminator(channel, size)
+        && (lineNums[blocks] + 1) % maxLines == 0) {
+      points.add(size);
+    }
+    points.complete();
+
+    return points.asList();
+  }
+
+  private static void scan(FileChannel channel, long from, long to, long size,
+      LineBoundaries.LineEndVisitor visitor) {
+    try {
+      LineBoundaries.scanTerminators(channel, from, to, size, visitor);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static boolean endsWithTerminator(FileChannel channel, long size)
+      throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(1);
+    if (channel.read(buf, size - 1) <= 0) return true;
+
+    byte b = buf.get(0);
+    return b == LineBoundaries.LF || b == LineBoundaries.CR;
+  }
+
+}
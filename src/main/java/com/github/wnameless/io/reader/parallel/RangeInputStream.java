@@ -0,0 +1,74 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 
+ * {@link RangeInputStream} reads the bytes of a {@link FileChannel} within the
+ * range [start, end) by positional reads.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class RangeInputStream extends InputStream {
+
+  private final FileChannel channel;
+  private final long end;
+
+  private long position;
+
+  RangeInputStream(FileChannel channel, long start, long end) {
+    this.channel = channel;
+    this.end = end;
+    position = start;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int n = read(b, 0, 1);
+    return n <= 0 ? -1 : b[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return 0;
+    if (position >= end) return -1;
+
+    int n = (int) Math.min(len, end - position);
+    n = channel.read(ByteBuffer.wrap(b, off, n), position);
+    if (n <= 0) return -1;
+
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, end - position));
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
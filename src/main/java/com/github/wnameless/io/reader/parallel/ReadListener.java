@@ -0,0 +1,105 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.File;
+
+/**
+ * 
+ * {@link ReadListener} receives the events of a parallel reading, such as the
+ * discovery of partition points and the lifecycle of each part. All methods do
+ * nothing by default, so an implementation only overrides the events it needs.
+ * Methods about parts are called by the worker threads and must be
+ * thread-safe. Times are measured by {@link System#nanoTime()}.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public interface ReadListener {
+
+  /**
+   * A {@link ReadListener} which ignores all events.
+   */
+  ReadListener NOOP = new ReadListener() {};
+
+  /**
+   * Called before partition points of a file are searched.
+   * 
+   * @param file
+   *          the file to be divided
+   */
+  default void scanStarted(File file) {}
+
+  /**
+   * Called after partition points of a file are found.
+   * 
+   * @param file
+   *          the file to be divided
+   * @param partitions
+   *          the number of parts
+   * @param nanos
+   *          the time spent on searching
+   */
+  default void scanFinished(File file, int partitions, long nanos) {}
+
+  /**
+   * Called when a part is submitted to an executor.
+   * 
+   * @param part
+   *          the index of the part
+   * @param bytes
+   *          the number of bytes of the part, or -1 if unknown
+   */
+  default void partitionSubmitted(int part, long bytes) {}
+
+  /**
+   * Called when a part starts to run on a worker thread.
+   * 
+   * @param part
+   *          the index of the part
+   * @param queueNanos
+   *          the time between the submission and the start
+   */
+  default void partitionStarted(int part, long queueNanos) {}
+
+  /**
+   * Called when a part is finished successfully.
+   * 
+   * @param part
+   *          the index of the part
+   * @param bytes
+   *          the number of bytes of the part, or -1 if unknown
+   * @param lines
+   *          the number of lines read by the part
+   * @param runNanos
+   *          the time between the start and the finish
+   */
+  default void partitionFinished(int part, long bytes, long lines,
+      long runNanos) {}
+
+  /**
+   * Called when a part is failed by an exception.
+   * 
+   * @param part
+   *          the index of the part
+   * @param error
+   *          the cause of the failure
+   * @param runNanos
+   *          the time between the start and the failure
+   */
+  default void partitionFailed(int part, Throwable error, long runNanos) {}
+
+}
@@ -0,0 +1,89 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * 
+ * {@link ReaderLineSource} provides lines from a {@link BufferedReader}. Since
+ * the characters are already decoded, a line read into a {@link LineSlice} is
+ * decoded into a String and encoded again by the given {@link Charset}, which
+ * allocates a String and a byte array per line. Files in a charset whose line
+ * terminators are single ASCII bytes are read by {@link StreamLineSource}
+ * instead.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class ReaderLineSource implements LineSource {
+
+  private final BufferedReader br;
+  private final Charset charset;
+
+  private String peek;
+  private boolean peeked;
+
+  ReaderLineSource(BufferedReader br, Charset charset) {
+    this.br = br;
+    this.charset = charset;
+    peek();
+  }
+
+  private void peek() {
+    try {
+      peek = br.readLine();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    peeked = true;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!peeked) peek();
+    return peek != null;
+  }
+
+  @Override
+  public String readLine() throws IOException {
+    if (!peeked) peek = br.readLine();
+
+    String line = peek;
+    peek = null;
+    peeked = line == null;
+    return line;
+  }
+
+  @Override
+  public boolean readLine(LineSlice slice) throws IOException {
+    String line = readLine();
+    if (line == null) return false;
+
+    byte[] bytes = line.getBytes(charset);
+    slice.set(ByteBuffer.wrap(bytes), 0, bytes.length);
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    br.close();
+  }
+
+}
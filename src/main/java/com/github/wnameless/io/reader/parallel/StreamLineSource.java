@@ -0,0 +1,183 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static com.github.wnameless.io.reader.parallel.LineBoundaries.CR;
+import static com.github.wnameless.io.reader.parallel.LineBoundaries.LF;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 
+ * {@link StreamLineSource} splits the bytes of an {@link InputStream} into
+ * lines, and provides the lines which start within the first given number of
+ * bytes. The last provided line may extend beyond the limit. If the byte right
+ * before the stream is known to be in the middle of a line, the rest of that
+ * line is skipped, so consecutive streams cut at arbitrary bytes provide every
+ * line exactly once. Line terminators are found by {@link NewlineScanner} and
+ * the bytes between them are copied in bulk. A line read into a
+ * {@link LineSlice} refers to the raw bytes of the stream.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+final class StreamLineSource implements LineSource {
+
+  private final InputStream in;
+  private final Charset charset;
+  private final long limit;
+
+  private final byte[] buf = new byte[8192];
+  private final ByteBuffer bufView = ByteBuffer.wrap(buf);
+  private int bufPos = 0;
+  private int bufLen = 0;
+  private long bufOffset = 0;
+  private long position = 0;
+
+  private byte[] line = new byte[256];
+  private ByteBuffer lineBuffer = ByteBuffer.wrap(line);
+  private int lineLen = 0;
+
+  /**
+   * Creates a {@link StreamLineSource}.
+   * 
+   * @param in
+   *          an {@link InputStream}
+   * @param charset
+   *          the {@link Charset} of the stream
+   * @param previousByte
+   *          the byte right before the stream, or -1 if the stream is the
+   *          beginning of the content
+   * @param limit
+   *          only lines start before this number of bytes are provided, but
+   *          the first line of the content is always provided
+   * @throws IOException
+   *           if any I/O Exception happened during reading
+   */
+  StreamLineSource(InputStream in, Charset charset, int previousByte,
+      long limit) throws IOException {
+    this.in = in;
+    this.charset = charset;
+
+    if (previousByte < 0) {
+      if (StandardCharsets.UTF_8.equals(charset)) skipBom();
+    } else if (previousByte == CR) {
+      if (peek() == LF) bufPos++;
+    } else if (previousByte != LF) {
+      // Skips the rest of a line which belongs to the previous stream
+      scanLine(false);
+    }
+    position = bufOffset + bufPos;
+
+    // The first line always belongs to the beginning of the content, even if
+    // the limit falls inside the byte order mark, because the following stream
+    // starts after a byte of the mark and skips that line as a partial one
+    this.limit = previousByte < 0 ? Math.max(limit, position + 1) : limit;
+  }
+
+  private boolean ensure(int n) throws IOException {
+    if (bufLen - bufPos >= n) return true;
+
+    System.arraycopy(buf, bufPos, buf, 0, bufLen - bufPos);
+    bufOffset += bufPos;
+    bufLen -= bufPos;
+    bufPos = 0;
+    while (bufLen < n) {
+      int read = in.read(buf, bufLen, buf.length - bufLen);
+      if (read < 0) return false;
+      bufLen += read;
+    }
+    return true;
+  }
+
+  private int peek() throws IOException {
+    return ensure(1) ? buf[bufPos] & 0xFF : -1;
+  }
+
+  private void skipBom() throws IOException {
+    byte[] bom = LineBoundaries.UTF8_BOM;
+    if (!ensure(bom.length)) return;
+
+    for (int i = 0; i < bom.length; i++) {
+      if (buf[bufPos + i] != bom[i]) return;
+    }
+    bufPos += bom.length;
+  }
+
+  private void scanLine(boolean keep) throws IOException {
+    while (ensure(1)) {
+      int end = NewlineScanner.indexOfTerminator(bufView, bufPos, bufLen);
+      int stop = end < 0 ? bufLen : end;
+      if (keep) append(bufPos, stop - bufPos);
+      bufPos = stop;
+      if (end < 0) continue;
+
+      if (buf[bufPos++] == CR && peek() == LF) bufPos++;
+      return;
+    }
+  }
+
+  private void append(int from, int length) {
+    if (lineLen + length > line.length) {
+      line = Arrays.copyOf(line, Math.max(line.length * 2, lineLen + length));
+    }
+    System.arraycopy(buf, from, line, lineLen, length);
+    lineLen += length;
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      return position < limit && peek() >= 0;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private boolean nextLine() throws IOException {
+    if (!hasNext()) return false;
+
+    lineLen = 0;
+    scanLine(true);
+    position = bufOffset + bufPos;
+    return true;
+  }
+
+  @Override
+  public String readLine() throws IOException {
+    return nextLine() ? new String(line, 0, lineLen, charset) : null;
+  }
+
+  @Override
+  public boolean readLine(LineSlice slice) throws IOException {
+    if (!nextLine()) return false;
+
+    if (lineBuffer.array() != line) lineBuffer = ByteBuffer.wrap(line);
+    slice.set(lineBuffer, 0, lineLen);
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+}
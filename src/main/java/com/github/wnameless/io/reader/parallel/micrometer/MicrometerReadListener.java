@@ -0,0 +1,122 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel.micrometer;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import com.github.wnameless.io.reader.parallel.ReadListener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 
+ * {@link MicrometerReadListener} publishes the events of a parallel reading to
+ * a Micrometer {@link MeterRegistry}. Micrometer is an optional dependency, so
+ * it must be added by the application to use this class.
+ * 
+ * @author Wei-Ming Wu
+ *
+ */
+public final class MicrometerReadListener implements ReadListener {
+
+  /**
+   * The default prefix of meter names.
+   */
+  public static final String DEFAULT_PREFIX = "parallel.reader";
+
+  private final MeterRegistry registry;
+  private final String prefix;
+
+  private final Timer scanTimer;
+  private final Timer queueTimer;
+  private final Timer runTimer;
+  private final DistributionSummary bytesSummary;
+  private final DistributionSummary linesSummary;
+  private final Counter submittedCounter;
+
+  /**
+   * Creates a {@link MicrometerReadListener} with {@link #DEFAULT_PREFIX}.
+   * 
+   * @param registry
+   *          a {@link MeterRegistry}
+   */
+  public MicrometerReadListener(MeterRegistry registry) {
+    this(registry, DEFAULT_PREFIX);
+  }
+
+  /**
+   * Creates a {@link MicrometerReadListener}.
+   * 
+   * @param registry
+   *          a {@link MeterRegistry}
+   * @param prefix
+   *          the prefix of meter names
+   */
+  public MicrometerReadListener(MeterRegistry registry, String prefix) {
+    this.registry = registry;
+    this.prefix = prefix;
+    scanTimer = Timer.builder(prefix + ".scan")
+        .description("Time spent on searching partition points")
+        .register(registry);
+    queueTimer = Timer.builder(prefix + ".partition.queue")
+        .description("Time which parts waited in executors")
+        .register(registry);
+    runTimer = Timer.builder(prefix + ".partition.run")
+        .description("Time which parts ran on worker threads")
+        .register(registry);
+    bytesSummary = DistributionSummary.builder(prefix + ".partition.bytes")
+        .baseUnit("bytes").register(registry);
+    linesSummary = DistributionSummary.builder(prefix + ".partition.lines")
+        .baseUnit("lines").register(registry);
+    submittedCounter =
+        Counter.builder(prefix + ".partition.submitted").register(registry);
+  }
+
+  @Override
+  public void scanFinished(File file, int partitions, long nanos) {
+    scanTimer.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void partitionSubmitted(int part, long bytes) {
+    submittedCounter.increment();
+  }
+
+  @Override
+  public void partitionStarted(int part, long queueNanos) {
+    queueTimer.record(queueNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void partitionFinished(int part, long bytes, long lines,
+      long runNanos) {
+    runTimer.record(runNanos, TimeUnit.NANOSECONDS);
+    if (bytes >= 0) bytesSummary.record(bytes);
+    linesSummary.record(lines);
+  }
+
+  @Override
+  public void partitionFailed(int part, Throwable error, long runNanos) {
+    runTimer.record(runNanos, TimeUnit.NANOSECONDS);
+    registry.counter(prefix + ".partition.failures", "exception",
+        error.getClass().getSimpleName()).increment();
+  }
+
+}
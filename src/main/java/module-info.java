@@ -1,5 +1,7 @@
 module com.github.wnameless.io.reader.parallel {
   requires net.sf.rubycollect4j;
+  requires static micrometer.core;
 
   exports com.github.wnameless.io.reader.parallel;
+  exports com.github.wnameless.io.reader.parallel.micrometer;
 }
\ No newline at end of file
@@ -0,0 +1,231 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BgzfBlocksTest {
+
+  private static void writeBlock(OutputStream out, byte[] data, int off,
+      int len) throws IOException {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(data, off, len);
+    deflater.finish();
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    byte[] buf = new byte[1024];
+    while (!deflater.finished()) {
+      compressed.write(buf, 0, deflater.deflate(buf));
+    }
+    deflater.end();
+
+    CRC32 crc = new CRC32();
+    crc.update(data, off, len);
+    int blockSize = 18 + compressed.size() + 8;
+
+    out.write(new byte[] { 31, (byte) 139, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 6,
+        0, 'B', 'C', 2, 0, (byte) (blockSize - 1),
+        (byte) ((blockSize - 1) >> 8) });
+    compressed.writeTo(out);
+    writeInt(out, (int) crc.getValue());
+    writeInt(out, len);
+  }
+
+  private static void writeInt(OutputStream out, int value)
+      throws IOException {
+    for (int i = 0; i < 4; i++) {
+      out.write(value >> (i * 8));
+    }
+  }
+
+  private static Path bgzf(Path dir, byte[] data, int blockSize)
+      throws IOException {
+    return bgzf(dir, data, blockSize, blockSize);
+  }
+
+  private static Path bgzf(Path dir, byte[] data, int firstBlockSize,
+      int blockSize) throws IOException {
+    Path path = TestFiles.createFile(dir, "").toPath();
+    try (OutputStream out = Files.newOutputStream(path)) {
+      int first = Math.min(firstBlockSize, data.length);
+      writeBlock(out, data, 0, first);
+      for (int off = first; off < data.length; off += blockSize) {
+        writeBlock(out, data, off, Math.min(blockSize, data.length - off));
+      }
+      writeBlock(out, data, 0, 0);
+    }
+    return path;
+  }
+
+  private static String content(Random rand) {
+    String[] terminators = { "\n", "\r\n", "\r" };
+    StringBuilder sb = new StringBuilder("\uFEFF");
+    for (int i = 0; i < 300; i++) {
+      int length = rand.nextInt(10) == 0 ? rand.nextInt(200) : rand.nextInt(8);
+      for (int j = 0; j < length; j++) {
+        sb.append(rand.nextInt(20) == 0 ? '\u00e9' : (char) ('a' + j % 26));
+      }
+      sb.append(terminators[rand.nextInt(terminators.length)]);
+    }
+    sb.append("last");
+    return sb.toString();
+  }
+
+  private static List<String> lines(String content) throws IOException {
+    return new BufferedReader(new StringReader(content.substring(1))).lines()
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> readAll(List<CompletableFuture<List<String>>> f) {
+    List<String> lines = new ArrayList<>();
+    f.forEach(future -> lines.addAll(future.join()));
+    return lines;
+  }
+
+  private static final LineReaderFunction<List<String>> COLLECT =
+      (part, lr) -> {
+        List<String> lines = new ArrayList<>();
+        while (lr.hasNext()) {
+          lines.add(lr.readLineQuietly());
+        }
+        lr.closeQuietly();
+        return lines;
+      };
+
+  @Test
+  public void testReadParallellyBgzf(@TempDir Path tempDir)
+      throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    Random rand = new Random(42);
+
+    for (int blockSize : new int[] { 1, 2, 3, 7, 64, 1000 }) {
+      String content = content(rand);
+      Path path =
+          bgzf(tempDir, content.getBytes(StandardCharsets.UTF_8), blockSize);
+      assertTrue(LineReaders.isBgzf(path.toFile()));
+
+      for (int partitions = 1; partitions <= 30; partitions++) {
+        assertEquals(lines(content),
+            readAll(LineReaders.readParallellyBgzf(path.toFile(),
+                StandardCharsets.UTF_8, partitions, COLLECT, executor)));
+      }
+      assertEquals(lines(content),
+          readAll(LineReaders.readParallellyGzip(path.toFile(),
+              StandardCharsets.UTF_8, 7, COLLECT, executor)));
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testBomOnlyFirstBlock(@TempDir Path tempDir) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    StringBuilder sb = new StringBuilder("\uFEFF");
+    for (int i = 0; i < 2000; i++) {
+      sb.append("line").append(i).append('\n');
+    }
+    String content = sb.toString();
+
+    for (int firstBlockSize = 1; firstBlockSize <= 4; firstBlockSize++) {
+      Path path = bgzf(tempDir, content.getBytes(StandardCharsets.UTF_8),
+          firstBlockSize, 64);
+
+      for (int partitions : new int[] { 1, 64, 200, 1000, 5000 }) {
+        List<String> lines = readAll(LineReaders.readParallellyBgzf(
+            path.toFile(), StandardCharsets.UTF_8, partitions, COLLECT,
+            executor));
+        assertEquals(2000, lines.size());
+        assertEquals("line0", lines.get(0));
+        assertEquals(lines(content), lines);
+      }
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testCorruptBlock(@TempDir Path tempDir) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    Path path = bgzf(tempDir,
+        content(new Random(3)).getBytes(StandardCharsets.UTF_8), 1000);
+
+    // Flips a bit of the CRC32 in the trailer of the first block, so the block
+    // still inflates to the size in its trailer
+    byte[] bytes = Files.readAllBytes(path);
+    int blockSize = ((bytes[16] & 0xFF) | (bytes[17] & 0xFF) << 8) + 1;
+    bytes[blockSize - 8] ^= 1;
+    Files.write(path, bytes);
+
+    for (boolean bgzf : new boolean[] { true, false }) {
+      // Either the read or a part fails by the ZipException
+      Exception e = assertThrows(Exception.class,
+          () -> readAll(bgzf
+              ? LineReaders.readParallellyBgzf(path.toFile(),
+                  StandardCharsets.UTF_8, 4, COLLECT, executor)
+              : LineReaders.readParallellyGzip(path.toFile(),
+                  StandardCharsets.UTF_8, 4, COLLECT, executor)));
+      Throwable cause = e;
+      while (cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      assertTrue(cause instanceof ZipException);
+    }
+
+    executor.shutdown();
+  }
+
+  @Test
+  public void testReadParallellyGzip(@TempDir Path tempDir)
+      throws IOException {
+    String content = content(new Random(7));
+    Path path = TestFiles.createFile(tempDir, "").toPath();
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertFalse(LineReaders.isBgzf(path.toFile()));
+    assertEquals(lines(content),
+        readAll(LineReaders.readParallellyGzip(path.toFile(),
+            StandardCharsets.UTF_8, 5, COLLECT,
+            Executors.newFixedThreadPool(4))));
+    assertFalse(LineReaders.isBgzf(new File("src/test/resources/test.csv")));
+  }
+
+}
@@ -0,0 +1,212 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CheckpointJournalTest {
+
+  private static File createFile(Path dir, int lines) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      sb.append(i).append('\n');
+    }
+    return TestFiles.createFile(dir, sb.toString());
+  }
+
+  private static LineReaderFunction<String> function(int failingPart) {
+    return (part, lr) -> {
+      if (part == failingPart) throw new IllegalStateException("crashed");
+
+      String str = "";
+      while (lr.hasNext()) {
+        str += lr.readLineQuietly() + ",";
+      }
+      lr.closeQuietly();
+      return str;
+    };
+  }
+
+  private static List<String> joinQuietly(
+      List<CompletableFuture<String>> futures) {
+    return futures.stream().map(f -> {
+      try {
+        return f.join();
+      } catch (CompletionException e) {
+        return "failed";
+      }
+    }).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testResume(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 10);
+    File journalFile = CheckpointJournal.getJournalFile(file);
+
+    List<String> first = joinQuietly(LineReaders.readParallellyCheckpointed(
+        file, StandardCharsets.UTF_8, 3, function(2),
+        ForkJoinPool.commonPool(), journalFile));
+    assertEquals(Arrays.asList("0,1,2,", "3,4,5,", "failed", "9,"), first);
+    assertTrue(journalFile.isFile());
+
+    try (CheckpointJournal journal = CheckpointJournal.open(journalFile, file,
+        StandardCharsets.UTF_8, 3)) {
+      assertEquals(4, journal.getPartitionCount());
+      assertEquals(3, journal.getCompletedCount());
+      assertEquals(false, journal.isCompleted(2));
+      assertEquals(12, journal.getStart(2));
+      assertEquals(18, journal.getEnd(2));
+    }
+
+    List<String> second = joinQuietly(LineReaders.readParallellyCheckpointed(
+        file, StandardCharsets.UTF_8, 3, function(-1),
+        ForkJoinPool.commonPool(), journalFile));
+    assertEquals(Arrays.asList(null, null, "6,7,8,", null), second);
+    assertEquals(false, journalFile.exists());
+  }
+
+  @Test
+  public void testStaleJournal(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 10);
+    File journalFile = CheckpointJournal.getJournalFile(file);
+    joinQuietly(LineReaders.readParallellyCheckpointed(file,
+        StandardCharsets.UTF_8, 3, function(0), ForkJoinPool.commonPool(),
+        journalFile));
+
+    try (CheckpointJournal journal = CheckpointJournal.open(journalFile, file,
+        StandardCharsets.UTF_8, 4)) {
+      assertEquals(3, journal.getPartitionCount());
+      assertEquals(0, journal.getCompletedCount());
+    }
+  }
+
+  @Test
+  public void testCorruptJournal(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 10);
+    File journalFile = CheckpointJournal.getJournalFile(file);
+    List<String> expected = Arrays.asList("0,1,2,", "3,4,5,", "6,7,8,", "9,");
+
+    // the header length, a byte of the path and the count of points
+    int[] offsets = new int[] { 40, 46, -1 };
+    int[] values = new int[] { 0x7FFFFFF0, 0xFF, -5 };
+    for (int i = 0; i < offsets.length; i++) {
+      joinQuietly(LineReaders.readParallellyCheckpointed(file,
+          StandardCharsets.UTF_8, 3, function(2), ForkJoinPool.commonPool(),
+          journalFile));
+
+      byte[] bytes = Files.readAllBytes(journalFile.toPath());
+      int offset = offsets[i] >= 0 ? offsets[i]
+          : bytes.length - 3 * 20 - 4 * 8 - 4;
+      if (values[i] == 0xFF) {
+        bytes[offset] = (byte) 0xFF;
+      } else {
+        ByteBuffer.wrap(bytes).putInt(offset, values[i]);
+      }
+      Files.write(journalFile.toPath(), bytes);
+
+      assertEquals(expected, joinQuietly(LineReaders
+          .readParallellyCheckpointed(file, StandardCharsets.UTF_8, 3,
+              function(-1), ForkJoinPool.commonPool(), journalFile)));
+      assertEquals(false, journalFile.exists());
+    }
+  }
+
+  @Test
+  public void testJournalFailure(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 10);
+    File journalFile = CheckpointJournal.getJournalFile(file);
+    LineReaderFunction<String> function = function(-1);
+    List<String> expected = Arrays.asList("0,1,2,", "3,4,5,", "6,7,8,", "9,");
+
+    // An interrupted thread closes the journal channel when the second part
+    // is recorded, so no later part can be recorded either
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    assertEquals(expected,
+        joinQuietly(LineReaders.readParallellyCheckpointed(file,
+            StandardCharsets.UTF_8, 3, (part, lr) -> {
+              if (part == 1) Thread.currentThread().interrupt();
+              return function.apply(part, lr);
+            }, executor, journalFile)));
+    executor.shutdown();
+    assertTrue(journalFile.isFile());
+
+    assertEquals(Arrays.asList(null, "3,4,5,", "6,7,8,", "9,"),
+        joinQuietly(LineReaders.readParallellyCheckpointed(file,
+            StandardCharsets.UTF_8, 3, function, ForkJoinPool.commonPool(),
+            journalFile)));
+    assertEquals(false, journalFile.exists());
+  }
+
+  @Test
+  public void testPartialEntry(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 10);
+    File journalFile = CheckpointJournal.getJournalFile(file);
+    try (CheckpointJournal journal = CheckpointJournal.open(journalFile, file,
+        StandardCharsets.UTF_8, 3)) {
+      journal.complete(0);
+      journal.complete(1);
+    }
+    Files.write(journalFile.toPath(), new byte[] { 0, 0, 0, 2, 0 },
+        StandardOpenOption.APPEND);
+
+    try (CheckpointJournal journal = CheckpointJournal.open(journalFile, file,
+        StandardCharsets.UTF_8, 3)) {
+      assertEquals(2, journal.getCompletedCount());
+      journal.complete(3);
+    }
+    try (CheckpointJournal journal = CheckpointJournal.open(journalFile, file,
+        StandardCharsets.UTF_8, 3)) {
+      assertEquals(3, journal.getCompletedCount());
+      assertTrue(journal.isCompleted(3));
+    }
+  }
+
+  @Test
+  public void testParallelLineReader(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 10);
+    File journalFile = CheckpointJournal.getJournalFile(file);
+    ParallelLineReader reader =
+        new ParallelLineReader(5, file, StandardCharsets.UTF_8);
+    reader.setCheckpointFile(journalFile);
+
+    assertEquals(journalFile, reader.getCheckpointFile());
+    assertEquals(Arrays.asList("failed", "5,6,7,8,9,", ""),
+        joinQuietly(reader.readParallelly(function(0))));
+    assertEquals(Arrays.asList("0,1,2,3,4,", null, null),
+        joinQuietly(reader.readParallelly(function(-1))));
+  }
+
+}
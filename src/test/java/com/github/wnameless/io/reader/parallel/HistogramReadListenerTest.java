@@ -0,0 +1,118 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.wnameless.io.reader.parallel.micrometer.MicrometerReadListener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class HistogramReadListenerTest {
+
+  private static final LineReaderFunction<Integer> COUNT = (part, lr) -> {
+    int count = 0;
+    while (lr.hasNext()) {
+      lr.readLineQuietly();
+      count++;
+    }
+    lr.closeQuietly();
+    return count;
+  };
+
+  @Test
+  public void testHistogram() {
+    HistogramReadListener.Histogram histogram =
+        new HistogramReadListener.Histogram();
+    assertEquals(0, histogram.getPercentile(50));
+
+    for (long i = 0; i <= 100; i++) {
+      histogram.record(i);
+    }
+
+    assertEquals(101, histogram.getCount());
+    assertEquals(5050, histogram.getSum());
+    assertEquals(100, histogram.getMax());
+    assertEquals(50.0, histogram.getMean(), 0.0);
+    assertEquals(63, histogram.getPercentile(50));
+    assertEquals(100, histogram.getPercentile(99));
+    assertEquals(0, histogram.getPercentile(0));
+  }
+
+  @Test
+  public void testReadParallelly() throws IOException {
+    HistogramReadListener listener = new HistogramReadListener();
+
+    int lines = LineReaders.readParallelly(
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8, 3,
+        COUNT, Executors.newFixedThreadPool(4), listener).stream()
+        .mapToInt(CompletableFuture::join).sum();
+
+    assertEquals(11, lines);
+    assertEquals(1, listener.getScanNanos().getCount());
+    assertEquals(4, listener.getSubmitted());
+    assertEquals(4, listener.getRunNanos().getCount());
+    assertEquals(26, listener.getBytes().getSum());
+    assertEquals(11, listener.getLines().getSum());
+    assertEquals(3, listener.getLines().getMax());
+    assertTrue(listener.getSlowestPart() >= 0);
+    assertTrue(listener.getErrors().isEmpty());
+  }
+
+  @Test
+  public void testParallelLineReader() throws IOException {
+    HistogramReadListener listener = new HistogramReadListener();
+    ParallelLineReader plr = new ParallelLineReader(2,
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8);
+    plr.setReadListener(listener);
+
+    CompletableFuture.allOf(plr.readParallelly((part, lr) -> {
+      if (part == 1) throw new IllegalStateException();
+      return COUNT.apply(part, lr);
+    }).toArray(new CompletableFuture[0])).handle((r, e) -> null).join();
+
+    assertEquals(6, listener.getSubmitted());
+    assertEquals(5, listener.getLines().getCount());
+    assertEquals(1, listener.getErrors().size());
+  }
+
+  @Test
+  public void testMicrometerReadListener() throws IOException {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    LineReaders.readParallelly(new File("src/test/resources/test.csv"),
+        StandardCharsets.UTF_8, 3, COUNT, Executors.newFixedThreadPool(4),
+        new MicrometerReadListener(registry))
+        .forEach(CompletableFuture::join);
+
+    assertEquals(4, registry.get("parallel.reader.partition.run").timer()
+        .count());
+    assertEquals(26.0, registry.get("parallel.reader.partition.bytes")
+        .summary().totalAmount(), 0.0);
+    assertEquals(11.0, registry.get("parallel.reader.partition.lines")
+        .summary().totalAmount(), 0.0);
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IncrementalLineReaderTest {
+
+  LineReaderFunction<List<String>> function = (part, lr) -> {
+    List<String> lines = new ArrayList<>();
+    while (lr.hasNext()) {
+      String line = lr.readLineQuietly();
+      if (line != null) lines.add(line);
+    }
+    lr.closeQuietly();
+    return lines;
+  };
+
+  private static void append(Path path, String content) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  private List<String> readNewLines(IncrementalLineReader reader)
+      throws IOException {
+    return reader.readNewLines(function).stream().map(CompletableFuture::join)
+        .flatMap(List::stream).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testReadNewLines(@TempDir Path tempDir) throws IOException {
+    Path path = TestFiles.createFile(tempDir, "").toPath();
+    IncrementalLineReader reader =
+        new IncrementalLineReader(2, path.toFile(), StandardCharsets.UTF_8);
+
+    assertEquals(Collections.emptyList(), readNewLines(reader));
+
+    append(path, "\uFEFFa\nb\r\nc\nd");
+    assertEquals(Arrays.asList("a", "b", "c"), readNewLines(reader));
+    assertEquals(3, reader.getLineCount());
+    assertEquals(10, reader.getOffset());
+    assertEquals(Collections.emptyList(), readNewLines(reader));
+
+    append(path, "1\ne\r");
+    assertEquals(Arrays.asList("d1"), readNewLines(reader));
+    append(path, "\nf\rg\n");
+    assertEquals(Arrays.asList("e", "f", "g"), readNewLines(reader));
+    assertEquals(7, reader.getLineCount());
+    assertEquals(path.toFile().length(), reader.getOffset());
+  }
+
+  @Test
+  public void testRotation(@TempDir Path tempDir) throws IOException {
+    Path path = TestFiles.createFile(tempDir, "a\nb\nc\n").toPath();
+    IncrementalLineReader reader =
+        new IncrementalLineReader(1, path.toFile(), StandardCharsets.UTF_8);
+    assertEquals(Arrays.asList("a", "b", "c"), readNewLines(reader));
+
+    Files.write(path, "x\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(Arrays.asList("x"), readNewLines(reader));
+    assertEquals(1, reader.getLineCount());
+
+    Path other = TestFiles.createFile(tempDir, "y\nz\n").toPath();
+    Files.move(other, path, StandardCopyOption.REPLACE_EXISTING);
+    assertEquals(Arrays.asList("y", "z"), readNewLines(reader));
+    assertEquals(2, reader.getLineCount());
+  }
+
+  @Test
+  public void testResume(@TempDir Path tempDir) throws IOException {
+    Path path = TestFiles.createFile(tempDir, "a\nb\nc\n").toPath();
+    IncrementalLineReader reader = new IncrementalLineReader(5,
+        path.toFile(), StandardCharsets.UTF_8, null, 2, 1);
+
+    assertEquals(Arrays.asList("b", "c"), readNewLines(reader));
+    assertEquals(3, reader.getLineCount());
+  }
+
+  @Test
+  public void testFollow(@TempDir Path tempDir) throws Exception {
+    Path path = TestFiles.createFile(tempDir, "").toPath();
+    IncrementalLineReader reader =
+        new IncrementalLineReader(3, path.toFile(), StandardCharsets.UTF_8);
+    ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor();
+
+    List<String> lines = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch latch = new CountDownLatch(10);
+    ScheduledFuture<?> following = reader.follow(scheduler, 10,
+        TimeUnit.MILLISECONDS, function, futures -> futures.forEach(f -> {
+          f.join().forEach(line -> {
+            lines.add(line);
+            latch.countDown();
+          });
+        }));
+
+    for (int i = 0; i < 10; i++) {
+      append(path, String.valueOf(i));
+      append(path, "\n");
+    }
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    following.cancel(false);
+    scheduler.shutdown();
+
+    assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8",
+        "9"), lines);
+  }
+
+}
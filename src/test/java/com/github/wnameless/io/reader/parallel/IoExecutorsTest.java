@@ -0,0 +1,73 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class IoExecutorsTest {
+
+  @Test
+  public void testPermits() {
+    ExecutorService executor = IoExecutors.newIoExecutor(3);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      futures.add(CompletableFuture.runAsync(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(2);
+        } catch (InterruptedException e) {}
+        running.decrementAndGet();
+      }, executor));
+    }
+    futures.forEach(CompletableFuture::join);
+    executor.shutdown();
+
+    assertTrue(maxRunning.get() <= 3);
+  }
+
+  @Test
+  public void testThreads() {
+    ExecutorService executor = IoExecutors.newIoExecutor();
+
+    Thread thread = CompletableFuture
+        .supplyAsync(() -> Thread.currentThread(), executor).join();
+    executor.shutdown();
+
+    assertTrue(thread.isDaemon());
+    if (!IoExecutors.isVirtualThreadSupported()) {
+      assertTrue(thread.getName().startsWith("parallel-line-reader-io-"));
+    }
+  }
+
+  @Test
+  public void testInvalidPermits() {
+    assertThrows(IllegalArgumentException.class,
+        () -> IoExecutors.newIoExecutor(0));
+  }
+
+}
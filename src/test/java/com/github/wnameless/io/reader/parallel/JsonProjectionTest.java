@@ -0,0 +1,108 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JsonProjectionTest {
+
+  private static LineSlice slice(String line) {
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    LineSlice slice = new LineSlice();
+    slice.set(ByteBuffer.wrap(bytes), 0, bytes.length);
+    return slice;
+  }
+
+  @Test
+  public void testProject() {
+    JsonProjection projection = new JsonProjection("id", "name", "tags");
+    LineSlice[] values = projection.newValues();
+
+    assertEquals(3, projection.project(slice(" { \"nested\" : {\"id\":0,"
+        + "\"x\":[\"}\"]}, \"id\": 42 ,\"name\":\"a \\\"b\\\"\","
+        + "\"tags\":[1, {\"a\":2}],\"id\":7}"), values));
+    assertEquals(42, values[0].parseInt());
+    assertEquals("\"a \\\"b\\\"\"", values[1].toString());
+    assertEquals("[1, {\"a\":2}]", values[2].toString());
+
+    LineSlice name = new LineSlice();
+    assertTrue(JsonProjection.unquote(values[1], name));
+    assertEquals("a \\\"b\\\"", name.toString());
+    assertEquals(false, JsonProjection.unquote(values[0], name));
+  }
+
+  @Test
+  public void testMissingKeysAndMalformedLines() {
+    JsonProjection projection = new JsonProjection("id", "name");
+    LineSlice[] values = projection.newValues();
+
+    assertEquals(1, projection.project(slice("{\"name\":null}"), values));
+    assertEquals(0, values[0].getLength());
+    assertEquals("null", values[1].toString());
+    assertEquals(0, projection.project(slice("{}"), values));
+    assertEquals(-1, projection.project(slice("[1,2]"), values));
+    assertEquals(-1, projection.project(slice("{\"id\":}"), values));
+    assertEquals(-1, projection.project(slice("{\"id\":1"), values));
+    assertEquals(-1, projection.project(slice("{\"a\":\"1}"), values));
+  }
+
+  @Test
+  public void testCollectNdjsonParallelly(@TempDir Path tempDir)
+      throws IOException {
+    StringBuilder sb = new StringBuilder("\uFEFF");
+    for (int i = 0; i < 100; i++) {
+      sb.append("{\"seq\":").append(i).append(",\"user\":\"u")
+          .append(i % 3).append("\",\"payload\":{\"v\":[").append(i)
+          .append("]}}").append(i % 2 == 0 ? "\n" : "\r\n");
+      if (i % 10 == 0) sb.append("  \n");
+    }
+    File file = TestFiles.createFile(tempDir, sb.toString());
+
+    JsonProjection projection = new JsonProjection("seq", "user");
+    for (int partitions = 1; partitions <= 8; partitions++) {
+      List<String> events = LineReaders.collectNdjsonParallelly(file,
+          partitions,
+          projection.decoders(values -> values[0].parseLong() + ":"
+              + values[1].toString(StandardCharsets.UTF_8)),
+          Collectors.toList(), ForkJoinPool.commonPool()).join();
+
+      assertEquals(100, events.size());
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i + ":\"u" + (i % 3) + "\"", events.get(i));
+      }
+    }
+
+    assertEquals(Long.valueOf(50),
+        LineReaders.collectNdjsonParallelly(file,
+            projection.decoders(
+                values -> values[0].parseLong() % 2 == 0 ? values : null),
+            Collectors.counting()).join());
+  }
+
+}
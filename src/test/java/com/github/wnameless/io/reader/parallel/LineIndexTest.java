@@ -0,0 +1,93 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LineIndexTest {
+
+  private static File createFile(Path dir, int lines, boolean terminated)
+      throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      sb.append("line").append(i);
+      if (i < lines - 1 || terminated) sb.append(i % 3 == 0 ? "\r\n" : "\n");
+    }
+    return TestFiles.createFile(dir, sb.toString());
+  }
+
+  @Test
+  public void testReadLine(@TempDir Path tempDir) throws IOException {
+    for (boolean terminated : new boolean[] { true, false }) {
+      File file = createFile(tempDir, 30, terminated);
+      List<String> lines = Files.readAllLines(file.toPath());
+
+      for (int interval = 1; interval <= 31; interval++) {
+        LineIndex index =
+            LineIndex.build(file, StandardCharsets.UTF_8, interval);
+
+        assertEquals(30, index.getLineCount());
+        assertEquals(file.length(), index.getLineOffset(30));
+        for (int n = 0; n < 30; n++) {
+          assertEquals(lines.get(n), index.readLine(n));
+        }
+        assertEquals(lines.subList(7, 19), index.readLines(7, 19));
+        assertEquals(lines, index.readLines(0, 30));
+        assertEquals(Collections.emptyList(), index.readLines(30, 30));
+        for (int maxLines = 1; maxLines <= 31; maxLines++) {
+          assertEquals(LineReaders.getPartitionPoints(file,
+              StandardCharsets.UTF_8, maxLines),
+              index.getPartitionPlan(maxLines).asList());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testOutOfBounds() throws IOException {
+    LineIndex index = LineIndex.build(new File("src/test/resources/test.csv"),
+        StandardCharsets.UTF_8, 4);
+
+    assertEquals(11, index.getLineCount());
+    assertEquals("11", index.readLine(10));
+    assertThrows(IndexOutOfBoundsException.class, () -> index.readLine(11));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> index.getLineOffset(-1));
+    assertThrows(IllegalArgumentException.class, () -> index.range(5, 4));
+  }
+
+  @Test
+  public void testEmptyFile(@TempDir Path tempDir) throws IOException {
+    LineIndex index = LineIndex.build(TestFiles.createFile(tempDir, ""),
+        StandardCharsets.UTF_8, 3);
+
+    assertEquals(0, index.getLineCount());
+    assertEquals(Collections.emptyList(), index.readLines(0, 0));
+  }
+
+}
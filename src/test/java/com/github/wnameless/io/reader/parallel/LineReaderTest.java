@@ -16,13 +16,28 @@
 package com.github.wnameless.io.reader.parallel;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class LineReaderTest {
 
@@ -56,4 +71,149 @@ public class LineReaderTest {
     assertEquals("12", res);
   }
 
+  @Test
+  public void testReadLineWithinRange() throws IOException {
+    LineReader lr = LineReaders
+        .toRangeLineReader(new File("src/test/resources/test.csv"), 3, 9);
+
+    String res = "";
+    while (lr.hasNext()) {
+      res += lr.readLine();
+    }
+    assertNull(lr.readLine());
+    lr.close();
+
+    assertEquals("234", res);
+  }
+
+  @Test
+  public void testMappedReadLine() throws IOException {
+    LineReader lr = LineReaders
+        .toMappedLineReader(new File("src/test/resources/test.csv"), 0, 26);
+
+    String res = "";
+    while (lr.hasNext()) {
+      res += lr.readLine();
+    }
+    assertNull(lr.readLine());
+    lr.close();
+
+    assertEquals("1234567891011", res);
+  }
+
+  @Test
+  public void testMappedReadLineWithSmallWindows(@TempDir Path tempDir)
+      throws IOException {
+    Path path = TestFiles
+        .createFile(tempDir, "a\r\nbbbbbbbbbb\rc\n\ndddddd\r\ne").toPath();
+
+    for (int windowSize = 1; windowSize <= 32; windowSize++) {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+      LineReader lr = new LineReader(new MappedLineSource(channel, 0,
+          channel.size(), StandardCharsets.UTF_8, windowSize), Long.MAX_VALUE);
+
+      String res = "";
+      while (lr.hasNext()) {
+        res += lr.readLine() + "|";
+      }
+      lr.close();
+
+      assertEquals("a|bbbbbbbbbb|c||dddddd|e|", res);
+    }
+  }
+
+  @Test
+  public void testMappedReadLineIntoSlice() throws IOException {
+    LineReader lr = LineReaders
+        .toMappedLineReader(new File("src/test/resources/test.csv"), 0, 26);
+
+    long sum = 0;
+    LineSlice slice = new LineSlice();
+    while (lr.readLine(slice)) {
+      sum += slice.parseLong();
+    }
+    lr.close();
+
+    assertEquals(66, sum);
+  }
+
+  @Test
+  public void testReadLineIntoSlice() throws IOException {
+    LineReader lr =
+        new LineReader(new FileReader("src/test/resources/test.csv"), 0, 2);
+
+    long sum = 0;
+    LineSlice slice = new LineSlice();
+    while (lr.readLine(slice)) {
+      sum += slice.parseLong();
+    }
+    lr.close();
+
+    assertEquals(3, sum);
+  }
+
+  @Test
+  public void testReadFileLineIntoSlice(@TempDir Path tempDir)
+      throws IOException {
+    Path path = TestFiles.createFile(tempDir, "").toPath();
+    Charset charset = StandardCharsets.ISO_8859_1;
+    Files.write(path, "caf\u00e9\r\nna\u00efve\n".getBytes(charset));
+    LineReader lr = new LineReader(path.toFile(), 0, 10, charset);
+
+    LineSlice slice = new LineSlice();
+    assertTrue(lr.readLine(slice));
+    assertTrue(slice.contentEquals("caf\u00e9".getBytes(charset)));
+    ByteBuffer buffer = slice.getBuffer();
+    assertTrue(lr.readLine(slice));
+    assertTrue(slice.contentEquals("na\u00efve".getBytes(charset)));
+    assertSame(buffer, slice.getBuffer());
+    assertFalse(lr.readLine(slice));
+    lr.close();
+
+    charset = StandardCharsets.UTF_16LE;
+    Files.write(path, "caf\u00e9\r\nna\u00efve\n".getBytes(charset));
+    lr = new LineReader(path.toFile(), 0, 10, charset);
+    assertTrue(lr.readLine(slice));
+    assertTrue(slice.contentEquals("caf\u00e9".getBytes(charset)));
+    assertTrue(lr.readLine(slice));
+    assertTrue(slice.contentEquals("na\u00efve".getBytes(charset)));
+    assertFalse(lr.readLine(slice));
+    lr.close();
+  }
+
+  @Test
+  public void testReadFileLinesAcrossBuffers(@TempDir Path tempDir)
+      throws IOException {
+    String[] terminators = new String[] { "\n", "\r", "\r\n" };
+    StringBuilder sb = new StringBuilder();
+    // Lines up to 20000 bytes cut buffers and terminators at any byte
+    for (int i = 0; i < 300; i++) {
+      for (int j = 0; j < i * 8191 % 20000; j++) {
+        sb.append((char) ('a' + j % 26));
+      }
+      sb.append(terminators[i % 3]);
+    }
+    File file = TestFiles.createFile(tempDir, sb.toString());
+
+    List<String> expected = new ArrayList<>();
+    try (BufferedReader br =
+        new BufferedReader(new StringReader(sb.toString()))) {
+      String line;
+      while ((line = br.readLine()) != null) {
+        expected.add(line);
+      }
+    }
+
+    List<String> lines = new ArrayList<>();
+    LineReader lr =
+        new LineReader(file, 0, Integer.MAX_VALUE, StandardCharsets.UTF_8);
+    String line;
+    while ((line = lr.readLine()) != null) {
+      lines.add(line);
+    }
+    lr.close();
+
+    assertEquals(expected, lines);
+  }
+
 }
@@ -16,20 +16,37 @@
 package com.github.wnameless.io.reader.parallel;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import net.sf.rubycollect4j.Ruby;
 
@@ -155,4 +172,450 @@ public class LineReaderUtilsTest {
     assertEquals("1234567891011", res);
   }
 
+  @Test
+  public void testGetRangePoints() throws IOException {
+    File file = new File("src/test/resources/test.csv");
+
+    assertEquals(Arrays.asList(new Long[] { 0L, 7L, 15L, 22L }),
+        LineReaders.getRangePoints(file, 4));
+    assertEquals(
+        Arrays.asList(new Long[] { 0L, 3L, 5L, 7L, 9L, 11L, 13L, 15L, 17L, 19L,
+            22L }),
+        LineReaders.getRangePointsByChunkSize(file, 1));
+    assertEquals(Arrays.asList(new Long[] { 0L }),
+        LineReaders.getRangePoints(file, 1));
+  }
+
+  @Test
+  public void testParallelLineReaderWithFileRanges()
+      throws InterruptedException, ExecutionException, IOException {
+    List<CompletableFuture<String>> futures = LineReaders.readParallellyByRange(
+        new File("src/test/resources/test.csv"), 4, (part, lr) -> {
+          String str = "";
+
+          while (lr.hasNext()) {
+            str += lr.readLineQuietly();
+          }
+
+          lr.closeQuietly();
+          return str;
+        }, Executors.newFixedThreadPool(4));
+
+    String res = "";
+    for (CompletableFuture<String> cf : futures) {
+      res += cf.get();
+    }
+
+    assertEquals("1234567891011", res);
+  }
+
+  @Test
+  public void testParallelLineReaderWithFileChunks()
+      throws InterruptedException, ExecutionException, IOException {
+    List<CompletableFuture<String>> futures =
+        LineReaders.readParallellyByChunkSize(
+            new File("src/test/resources/test.csv"), 5, (part, lr) -> {
+              String str = "";
+
+              while (lr.hasNext()) {
+                str += lr.readLineQuietly();
+              }
+
+              lr.closeQuietly();
+              return str;
+            });
+
+    String res = "";
+    for (CompletableFuture<String> cf : futures) {
+      res += cf.get();
+    }
+
+    assertEquals("1234567891011", res);
+  }
+
+  @Test
+  public void testParallelLineReaderWithMappedFile()
+      throws InterruptedException, ExecutionException, IOException {
+    List<CompletableFuture<String>> futures = LineReaders.readParallellyMapped(
+        new File("src/test/resources/test.csv"), 3, (part, lr) -> {
+          String str = "";
+
+          while (lr.hasNext()) {
+            str += lr.readLineQuietly();
+          }
+
+          lr.closeQuietly();
+          return str;
+        });
+
+    String res = "";
+    for (CompletableFuture<String> cf : futures) {
+      res += cf.get();
+    }
+
+    assertEquals("1234567891011", res);
+  }
+
+  @Test
+  public void testParallelLineReaderInSinglePass()
+      throws InterruptedException, ExecutionException, IOException {
+    List<CompletableFuture<String>> futures = LineReaders.readParallelly(
+        new FileReader("src/test/resources/test.csv"), 2, (part, lr) -> {
+          String str = "";
+
+          while (lr.hasNext()) {
+            str += lr.readLineQuietly();
+          }
+
+          return str;
+        }, Executors.newFixedThreadPool(4), 1);
+
+    assertEquals(6, futures.size());
+
+    String res = "";
+    for (CompletableFuture<String> cf : futures) {
+      res += cf.get();
+    }
+
+    assertEquals("1234567891011", res);
+  }
+
+  @Test
+  public void testGetPartitionPoints() throws IOException {
+    File file = new File("src/test/resources/test.csv");
+
+    assertEquals(Arrays.asList(new Long[] { 0L, 5L, 9L, 13L, 17L, 22L }),
+        LineReaders.getPartitionPoints(file, 2));
+    assertEquals(
+        Arrays.asList(new Long[] { 0L, 3L, 5L, 7L, 9L, 11L, 13L, 15L, 17L, 19L,
+            22L, 26L }),
+        LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8, 1));
+    assertThrows(IllegalArgumentException.class, () -> LineReaders
+        .getPartitionPoints(file, StandardCharsets.UTF_16, 1));
+  }
+
+  @Test
+  public void testGetDecodedPartitionPoints(@TempDir Path tempDir)
+      throws IOException {
+    File file = new File("src/test/resources/test.csv");
+    assertEquals(
+        LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8, 1),
+        LineReaders.getDecodedPartitionPoints(file, StandardCharsets.UTF_8, 1));
+
+    Charset charset = StandardCharsets.UTF_16LE;
+    Path path = TestFiles.createFile(tempDir, "").toPath();
+    Files.write(path, "a\nbb\r\nc".getBytes(charset));
+    assertEquals(Arrays.asList(0L, 4L, 12L, 14L),
+        LineReaders.getDecodedPartitionPoints(path.toFile(), charset, 1));
+    assertEquals(Arrays.asList(0L, 12L),
+        LineReaders.getDecodedPartitionPoints(path.toFile(), charset, 2));
+  }
+
+  @Test
+  public void testParallelLineReaderWithCharset(@TempDir Path tempDir)
+      throws InterruptedException, ExecutionException, IOException {
+    File file = TestFiles.createFile(tempDir,
+        "\uFEFF\u00e91\r\n\u00fc2\r\u00e43\n4");
+
+    assertEquals(Arrays.asList(new Long[] { 0L, 8L, 12L, 16L, 17L }),
+        LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8, 1));
+
+    LineReaderFunction<String> function = (part, lr) -> {
+      String str = "";
+
+      while (lr.hasNext()) {
+        str += lr.readLineQuietly() + "|";
+      }
+
+      lr.closeQuietly();
+      return str;
+    };
+
+    List<List<CompletableFuture<String>>> results = Arrays.asList(
+        LineReaders.readParallelly(file, StandardCharsets.UTF_8, 1, function),
+        LineReaders.readParallellyByRange(file, StandardCharsets.UTF_8, 3,
+            function, Executors.newFixedThreadPool(2)),
+        LineReaders.readParallellyMapped(file, StandardCharsets.UTF_8, 3,
+            function, Executors.newFixedThreadPool(2)));
+
+    for (List<CompletableFuture<String>> futures : results) {
+      String res = "";
+      for (CompletableFuture<String> cf : futures) {
+        res += cf.get();
+      }
+
+      assertEquals("\u00e91|\u00fc2|\u00e43|4|", res);
+    }
+  }
+
+  @Test
+  public void testReduceParallelly()
+      throws InterruptedException, ExecutionException, IOException {
+    File file = new File("src/test/resources/test.csv");
+
+    assertEquals(Long.valueOf(66),
+        LineReaders.reduceParallelly(file, StandardCharsets.UTF_8, 2, 0L,
+            (sum, line) -> sum + Long.parseLong(line), Long::sum,
+            Executors.newFixedThreadPool(4)).get());
+    assertEquals("1234567891011",
+        LineReaders.reduceParallelly(file, StandardCharsets.UTF_8, 3,
+            (part, lr) -> {
+              String str = "";
+
+              while (lr.hasNext()) {
+                str += lr.readLineQuietly();
+              }
+
+              lr.closeQuietly();
+              return str;
+            }, String::concat, Executors.newFixedThreadPool(4)).get());
+  }
+
+  @Test
+  public void testCollectParallelly()
+      throws InterruptedException, ExecutionException, IOException {
+    assertEquals("1,2,3,4,5,6,7,8,9,10,11",
+        LineReaders.collectParallelly(new File("src/test/resources/test.csv"),
+            StandardCharsets.UTF_8, 1, Collectors.joining(","),
+            Executors.newFixedThreadPool(4)).get());
+  }
+
+  @Test
+  public void testReadParallellyBounded() throws IOException {
+    AtomicInteger open = new AtomicInteger();
+    AtomicInteger maxOpen = new AtomicInteger();
+    LineReaderFunction<String> function = (part, lr) -> {
+      maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+      String str = "";
+      while (lr.hasNext()) {
+        str += lr.readLineQuietly();
+      }
+      lr.closeQuietly();
+      open.decrementAndGet();
+      return str;
+    };
+
+    try (Stream<String> results = LineReaders.readParallellyBounded(
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8, 1,
+        function, Executors.newFixedThreadPool(4), 2, true)) {
+      assertEquals("1234567891011", results.collect(Collectors.joining()));
+    }
+    assertTrue(maxOpen.get() <= 2);
+
+    try (Stream<String> results = LineReaders.readParallellyBounded(
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8, 1,
+        function, Executors.newFixedThreadPool(4), 3, false)) {
+      assertEquals(66, results.filter(str -> !str.isEmpty())
+          .mapToInt(Integer::parseInt).sum());
+    }
+    assertTrue(maxOpen.get() <= 3);
+  }
+
+  @Test
+  public void testReadParallellyBoundedPending() throws IOException {
+    AtomicInteger open = new AtomicInteger();
+    AtomicInteger maxOpen = new AtomicInteger();
+    CountDownLatch others = new CountDownLatch(3);
+    LineReaderFunction<String> function = (part, lr) -> {
+      maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+      try {
+        // The first part is finished only after 3 later parts, whose results
+        // are not taken yet, so they must not hold the running slots
+        if (part == 0 && !others.await(10, TimeUnit.SECONDS)) return "stuck";
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      String str = "";
+      while (lr.hasNext()) {
+        str += lr.readLineQuietly();
+      }
+      lr.closeQuietly();
+      open.decrementAndGet();
+      others.countDown();
+      return str;
+    };
+
+    try (Stream<String> results = LineReaders.readParallellyBounded(
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8, 1,
+        function, Executors.newFixedThreadPool(4), 2, 6, true)) {
+      assertEquals("1234567891011", results.collect(Collectors.joining()));
+    }
+    assertTrue(maxOpen.get() <= 2);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> LineReaders.readParallellyBounded(
+            new File("src/test/resources/test.csv"), StandardCharsets.UTF_8,
+            1, function, Executors.newFixedThreadPool(4), 3, 2, true));
+  }
+
+  @Test
+  public void testReadParallellyOrdered() throws IOException {
+    List<String> results = new ArrayList<>();
+    LineReaders.readParallellyOrdered(new File("src/test/resources/test.csv"),
+        StandardCharsets.UTF_8, 2, (part, lr) -> {
+          String str = "";
+          while (lr.hasNext()) {
+            str += lr.readLineQuietly();
+          }
+          lr.closeQuietly();
+          return str;
+        }, results::add, Executors.newFixedThreadPool(4), 2);
+
+    assertEquals(Arrays.asList("12", "34", "56", "78", "910", "11"),
+        results);
+  }
+
+  @Test
+  public void testTransformParallelly() throws IOException {
+    StringWriter writer = new StringWriter();
+    LineReaders.transformParallelly(new File("src/test/resources/test.csv"),
+        StandardCharsets.UTF_8, 3,
+        line -> line.length() > 1 ? null : "#" + line, writer,
+        Executors.newFixedThreadPool(4), 2);
+
+    assertEquals("#1\n#2\n#3\n#4\n#5\n#6\n#7\n#8\n#9\n", writer.toString());
+  }
+
+  @Test
+  public void testReadParallellyAdaptive() throws IOException {
+    LineReaderFunction<String> function = (part, lr) -> {
+      String str = "";
+      while (lr.hasNext()) {
+        str += lr.readLineQuietly() + ",";
+      }
+      lr.closeQuietly();
+      return str;
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    for (long chunkSize = 1; chunkSize <= 27; chunkSize++) {
+      for (int workers = 1; workers <= 3; workers++) {
+        List<CompletableFuture<String>> futures =
+            LineReaders.readParallellyAdaptive(
+                new File("src/test/resources/test.csv"), StandardCharsets.UTF_8,
+                chunkSize, function, executor, workers);
+
+        assertEquals((26 + chunkSize - 1) / chunkSize, futures.size());
+        assertEquals("1,2,3,4,5,6,7,8,9,10,11,", futures.stream()
+            .map(CompletableFuture::join).collect(Collectors.joining()));
+      }
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testReadParallellyPipelined() throws IOException {
+    LineReaderFunction<String> function = (part, lr) -> {
+      String str = "";
+      while (lr.hasNext()) {
+        str += lr.readLineQuietly() + ",";
+      }
+      lr.closeQuietly();
+      return str;
+    };
+    File file = new File("src/test/resources/test.csv");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    HistogramReadListener listener = new HistogramReadListener();
+
+    for (int maxLines = 1; maxLines <= 12; maxLines++) {
+      List<CompletableFuture<String>> expected = LineReaders.readParallelly(
+          file, StandardCharsets.UTF_8, maxLines, function, executor);
+      List<CompletableFuture<String>> futures =
+          LineReaders.readParallellyPipelined(file, StandardCharsets.UTF_8,
+              maxLines, function, executor, listener);
+
+      assertEquals(expected.size(), futures.size());
+      for (int i = 0; i < futures.size(); i++) {
+        assertEquals(expected.get(i).join(), futures.get(i).join());
+      }
+    }
+    assertTrue(listener.getErrors().isEmpty());
+    executor.shutdown();
+  }
+
+  private static Path writeLines(Path file, int lines) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      sb.append(String.format("%03d\n", i));
+    }
+    Files.createDirectories(file.getParent());
+    return Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReadParallellyFiles(@TempDir Path dir) throws IOException {
+    Path a = writeLines(dir.resolve("a.log"), 10);
+    Path b = writeLines(dir.resolve("b.log"), 3);
+    Path c = writeLines(dir.resolve("sub/c.log"), 25);
+    writeLines(dir.resolve("d.txt"), 5);
+
+    List<Integer> order = new ArrayList<>();
+    FileLineReaderFunction<String> function = (path, part, lr) -> {
+      List<String> lines = new ArrayList<>();
+      while (lr.hasNext()) {
+        String line = lr.readLineQuietly();
+        if (line != null) lines.add(line);
+      }
+      lr.closeQuietly();
+      synchronized (order) {
+        order.add(lines.size());
+      }
+      return path.getFileName() + ":" + part + ":" + String.join(",", lines);
+    };
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    Map<Path, List<CompletableFuture<String>>> futures =
+        LineReaders.readParallelly(dir, "**.log", StandardCharsets.UTF_8, 4,
+            function, executor);
+
+    assertEquals(Arrays.asList(a, b, c), new ArrayList<>(futures.keySet()));
+    assertEquals(Arrays.asList("a.log:0:000,001,002,003",
+        "a.log:1:004,005,006,007", "a.log:2:008,009"),
+        futures.get(a).stream().map(CompletableFuture::join)
+            .collect(Collectors.toList()));
+    assertEquals(Arrays.asList("b.log:0:000,001,002"), futures.get(b)
+        .stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    assertEquals(7, futures.get(c).size());
+    assertEquals("c.log:6:024", futures.get(c).get(6).join());
+
+    List<Integer> sorted = new ArrayList<>(order);
+    sorted.sort(Collections.reverseOrder());
+    assertEquals(sorted, order);
+    assertEquals(Arrays.asList(4, 4, 4, 4, 4, 4, 4, 4, 3, 2, 1), order);
+
+    assertEquals(Arrays.asList(a, b), new ArrayList<>(LineReaders
+        .readParallelly(dir, "*.log", StandardCharsets.UTF_8, 4, function,
+            executor).keySet()));
+    executor.shutdown();
+  }
+
+  @Test
+  public void testReadParallellyLargeFiles(@TempDir Path dir)
+      throws IOException {
+    Path large = writeLines(dir.resolve("large.log"), 1500000);
+    Path small = writeLines(dir.resolve("small.log"), 10);
+    assertTrue(Files.size(large) > PartitionScanner.DEFAULT_BLOCK_SIZE);
+
+    // A single worker would wait forever if it scanned the blocks by itself
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Map<Path, List<CompletableFuture<Long>>> futures =
+        LineReaders.readParallelly(Arrays.asList(large, small),
+            StandardCharsets.UTF_8, 100000, (path, part, lr) -> {
+              long lines = 0;
+              while (lr.readLineQuietly() != null) {
+                lines++;
+              }
+              lr.closeQuietly();
+              return lines;
+            }, executor);
+
+    assertEquals(LineReaders.getPartitionPoints(large.toFile(),
+        StandardCharsets.UTF_8, 100000).size(), futures.get(large).size());
+    assertEquals(1500000L, futures.get(large).stream()
+        .mapToLong(CompletableFuture::join).sum());
+    assertEquals(Arrays.asList(10L), futures.get(small).stream()
+        .map(CompletableFuture::join).collect(Collectors.toList()));
+    executor.shutdown();
+  }
+
 }
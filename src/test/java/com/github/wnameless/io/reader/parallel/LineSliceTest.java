@@ -0,0 +1,88 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class LineSliceTest {
+
+  private static LineSlice slice(String str) {
+    byte[] bytes = ("##" + str + "##").getBytes(StandardCharsets.UTF_8);
+    LineSlice slice = new LineSlice();
+    slice.set(ByteBuffer.wrap(bytes), 2, bytes.length - 4);
+    return slice;
+  }
+
+  @Test
+  public void testContentEquals() {
+    LineSlice slice = slice("abc");
+
+    assertTrue(slice.contentEquals("abc".getBytes(StandardCharsets.UTF_8)));
+    assertFalse(slice.contentEquals("abd".getBytes(StandardCharsets.UTF_8)));
+    assertTrue(slice.contentEquals(slice("abc")));
+    assertTrue(slice.startsWith("ab".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(slice("abc").contentHashCode(), slice.contentHashCode());
+    assertEquals("abc", slice.toString());
+  }
+
+  @Test
+  public void testParseLong() {
+    assertEquals(123, slice("123").parseInt());
+    assertEquals(-42, slice("-42").parseInt());
+    assertEquals(Long.MIN_VALUE, slice("-9223372036854775808").parseLong());
+    assertEquals(Long.MAX_VALUE, slice("9223372036854775807").parseLong());
+    assertThrows(NumberFormatException.class,
+        () -> slice("9223372036854775808").parseLong());
+    assertThrows(NumberFormatException.class,
+        () -> slice("2147483648").parseInt());
+    assertThrows(NumberFormatException.class, () -> slice("1a").parseInt());
+    assertThrows(NumberFormatException.class, () -> slice("-").parseInt());
+    assertThrows(NumberFormatException.class, () -> slice("").parseInt());
+  }
+
+  @Test
+  public void testField() {
+    LineSlice slice = slice("a,bb,,ccc");
+    LineSlice field = new LineSlice();
+
+    assertTrue(slice.field(1, (byte) ',', field));
+    assertEquals("bb", field.toString());
+    assertTrue(slice.field(2, (byte) ',', field));
+    assertEquals("", field.toString());
+    assertTrue(slice.field(3, (byte) ',', field));
+    assertEquals("ccc", field.toString());
+    assertFalse(slice.field(4, (byte) ',', field));
+  }
+
+  @Test
+  public void testSplit() {
+    LineSlice[] fields =
+        new LineSlice[] { new LineSlice(), new LineSlice(), new LineSlice() };
+
+    assertEquals(2, slice("1,2").split((byte) ',', fields));
+    assertEquals(3, slice("1,2,3,4").split((byte) ',', fields));
+    assertEquals(3, fields[2].parseInt());
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LineSpliteratorTest {
+
+  private static void collect(Spliterator<String> spliterator,
+      List<String> lines) {
+    Spliterator<String> prefix = spliterator.trySplit();
+    if (prefix != null) {
+      collect(prefix, lines);
+      collect(spliterator, lines);
+    } else {
+      spliterator.forEachRemaining(lines::add);
+    }
+  }
+
+  @Test
+  public void testTrySplit() throws IOException {
+    LineSpliterator.Context context = new LineSpliterator.Context(
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8);
+    LineSpliterator spliterator =
+        new LineSpliterator(context, 0, context.size(), 1);
+
+    List<String> lines = new ArrayList<>();
+    collect(spliterator, lines);
+    context.close();
+
+    assertEquals(Files.readAllLines(new File("src/test/resources/test.csv")
+        .toPath()), lines);
+  }
+
+  @Test
+  public void testTrySplitAfterReading() throws IOException {
+    LineSpliterator.Context context = new LineSpliterator.Context(
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8);
+    LineSpliterator spliterator =
+        new LineSpliterator(context, 0, context.size(), 1);
+
+    spliterator.tryAdvance(line -> assertEquals("1", line));
+    assertNull(spliterator.trySplit());
+    context.close();
+  }
+
+  @Test
+  public void testParallelStream(@TempDir Path tempDir) throws IOException {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100000; i++) {
+      expected.add("line " + i);
+    }
+    Path path = TestFiles.createFile(tempDir, "").toPath();
+    Files.write(path, expected, StandardCharsets.UTF_8);
+
+    try (Stream<String> lines =
+        LineReaders.lines(path.toFile(), StandardCharsets.UTF_8)) {
+      assertEquals(expected, lines.parallel().collect(Collectors.toList()));
+    }
+
+    LineSpliterator.Context context =
+        new LineSpliterator.Context(path.toFile(), StandardCharsets.UTF_8);
+    try (Stream<String> lines = StreamSupport
+        .stream(new LineSpliterator(context, 0, context.size(), 100), true)
+        .onClose(() -> {
+          try {
+            context.close();
+          } catch (IOException e) {}
+        })) {
+      assertEquals(100000, lines.filter(line -> line.startsWith("line "))
+          .count());
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class NewlineScannerTest {
+
+  private static int scalarIndexOf(byte[] bytes, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == '\n' || bytes[i] == '\r') return i;
+    }
+    return -1;
+  }
+
+  @Test
+  public void testIndexOfTerminator() {
+    Random rand = new Random(42);
+    byte[] alphabet = new byte[] { 'a', '\n', '\r', 0x0B, 0x0C, 0x09, 0x0E,
+        (byte) 0x8A, (byte) 0x8D, 0, (byte) 0xFF };
+
+    for (int round = 0; round < 2000; round++) {
+      byte[] bytes = new byte[rand.nextInt(40)];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = rand.nextInt(4) == 0
+            ? alphabet[rand.nextInt(alphabet.length)] : alphabet[0];
+      }
+      int from = bytes.length == 0 ? 0 : rand.nextInt(bytes.length);
+
+      for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN,
+          ByteOrder.LITTLE_ENDIAN }) {
+        ByteBuffer heap = ByteBuffer.wrap(bytes).order(order);
+        ByteBuffer direct =
+            ByteBuffer.allocateDirect(bytes.length).order(order);
+        direct.put(bytes);
+
+        int expected = scalarIndexOf(bytes, from, bytes.length);
+        assertEquals(expected,
+            NewlineScanner.indexOfTerminator(heap, from, bytes.length));
+        assertEquals(expected,
+            NewlineScanner.indexOfTerminator(direct, from, bytes.length));
+      }
+    }
+  }
+
+  @Test
+  public void testTerminatorMask() {
+    assertEquals(0L, NewlineScanner.terminatorMask(0x0B0C090E8A8D00FFL));
+    assertEquals(0x8000000000000080L,
+        NewlineScanner.terminatorMask(0x0A0000000000000DL));
+  }
+
+}
@@ -0,0 +1,162 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelCsvReaderTest {
+
+  CsvRecordFunction<List<List<String>>> function = (part, reader) -> {
+    List<List<String>> records = new ArrayList<>();
+    CsvRecord record = new CsvRecord();
+    while (reader.readRecordQuietly(record)) {
+      records.add(record.toList());
+    }
+    return records;
+  };
+
+  private List<List<String>> readAll(ParallelCsvReader reader)
+      throws IOException {
+    return reader.readParallelly(function).stream()
+        .map(CompletableFuture::join).flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testQuotedFields(@TempDir Path tempDir) throws IOException {
+    File file = TestFiles.createFile(tempDir,
+        "\uFEFFid,text\r\n" + "1,\"a,b\"\r\n" + "2,\"line\nbreak\"\n"
+            + "3,\"say \"\"hi\"\"\r\n\"\r" + "4,\"\"\n" + "5,x y\n" + "6");
+    List<List<String>> expected = Arrays.asList(Arrays.asList("id", "text"),
+        Arrays.asList("1", "a,b"), Arrays.asList("2", "line\nbreak"),
+        Arrays.asList("3", "say \"hi\"\r\n"), Arrays.asList("4", ""),
+        Arrays.asList("5", "x y"), Arrays.asList("6"));
+
+    for (int partitions = 1; partitions <= (int) file.length() + 1;
+        partitions++) {
+      ParallelCsvReader reader =
+          new ParallelCsvReader(partitions, file, StandardCharsets.UTF_8);
+      assertEquals(expected, readAll(reader));
+    }
+    assertTrue(new ParallelCsvReader(8, file, StandardCharsets.UTF_8)
+        .getRecordPoints().size() > 1);
+  }
+
+  @Test
+  public void testRecordPointsNeverSplitQuotes(@TempDir Path tempDir)
+      throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      sb.append(i).append(",\"").append(i % 2 == 0 ? "x\ny\r\nz" : "\"\"")
+          .append("\"\n");
+    }
+    File file = TestFiles.createFile(tempDir, sb.toString());
+
+    for (int partitions = 1; partitions <= 64; partitions *= 2) {
+      ParallelCsvReader reader =
+          new ParallelCsvReader(partitions, file, StandardCharsets.UTF_8);
+      List<List<String>> records = readAll(reader);
+
+      assertEquals(200, records.size());
+      for (int i = 0; i < 200; i++) {
+        assertEquals(Arrays.asList(String.valueOf(i),
+            i % 2 == 0 ? "x\ny\r\nz" : "\""), records.get(i));
+      }
+      assertTrue(reader.getRecordPoints().size() <= partitions);
+    }
+  }
+
+  @Test
+  public void testStrayQuotes(@TempDir Path tempDir) throws IOException {
+    StringBuilder sb = new StringBuilder("\uFEFF\"id\",text\n");
+    List<List<String>> expected = new ArrayList<>();
+    expected.add(Arrays.asList("id", "text"));
+    for (int i = 0; i < 150; i++) {
+      // A quote which is not at the start of a field is an ordinary byte
+      if (i % 3 == 0) {
+        sb.append(i).append(",5\"x,b\n");
+        expected.add(Arrays.asList(String.valueOf(i), "5\"x", "b"));
+      } else if (i % 3 == 1) {
+        sb.append(i).append(",\"p\nq\",c\r\n");
+        expected.add(Arrays.asList(String.valueOf(i), "p\nq", "c"));
+      } else {
+        sb.append(i).append(",\"r\"\"s\"t\"\n");
+        expected.add(Arrays.asList(String.valueOf(i), "r\"st\""));
+      }
+    }
+    File file = TestFiles.createFile(tempDir, sb.toString());
+
+    for (int partitions = 1; partitions <= 64; partitions++) {
+      ParallelCsvReader reader =
+          new ParallelCsvReader(partitions, file, StandardCharsets.UTF_8);
+      assertEquals(expected, readAll(reader));
+    }
+    assertTrue(new ParallelCsvReader(16, file, StandardCharsets.UTF_8)
+        .getRecordPoints().size() > 1);
+  }
+
+  @Test
+  public void testMalformedFileIsNotDivided(@TempDir Path tempDir)
+      throws IOException {
+    File file = TestFiles.createFile(tempDir, "a,\"b\nc,d\ne,f\n");
+    ParallelCsvReader reader =
+        new ParallelCsvReader(4, file, StandardCharsets.UTF_8);
+
+    assertEquals(Arrays.asList(0L), reader.getRecordPoints().asList());
+    assertEquals(1, readAll(reader).size());
+  }
+
+  @Test
+  public void testDelimiter(@TempDir Path tempDir) throws IOException {
+    File file = TestFiles.createFile(tempDir, "a;\"b;c\"\nd;e\n");
+    ParallelCsvReader reader =
+        new ParallelCsvReader(2, file, StandardCharsets.UTF_8);
+    reader.setDelimiter(';');
+
+    assertEquals(';', reader.getDelimiter());
+    assertEquals(Arrays.asList(Arrays.asList("a", "b;c"),
+        Arrays.asList("d", "e")), readAll(reader));
+    assertThrows(IllegalArgumentException.class,
+        () -> reader.setDelimiter('"'));
+  }
+
+  @Test
+  public void testTestCsv() throws IOException {
+    ParallelCsvReader reader = new ParallelCsvReader(3,
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8);
+
+    assertEquals(Files.readAllLines(new File("src/test/resources/test.csv")
+        .toPath()).stream().map(Arrays::asList).collect(Collectors.toList()),
+        readAll(reader));
+  }
+
+}
@@ -17,13 +17,19 @@ package com.github.wnameless.io.reader.parallel;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -100,4 +106,110 @@ public class ParallelLineReaderTest {
     assertEquals("1234567891011", res);
   }
 
+  @Test
+  public void testParallelReadInSinglePass()
+      throws InterruptedException, ExecutionException, IOException {
+    List<CompletableFuture<String>> futures =
+        plrWithExec.readParallellyInSinglePass((part, lr) -> {
+          String str = "";
+
+          while (lr.hasNext()) {
+            str += lr.readLineQuietly();
+          }
+
+          lr.closeQuietly();
+          return str;
+        });
+
+    String res = "";
+    for (CompletableFuture<String> cf : futures) {
+      res += cf.get();
+    }
+
+    assertEquals("1234567891011", res);
+  }
+
+  @Test
+  public void testParallelReadWithFile()
+      throws InterruptedException, ExecutionException, IOException {
+    ParallelLineReader plrWithFile = new ParallelLineReader(2,
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8);
+
+    List<CompletableFuture<String>> futures =
+        plrWithFile.readParallelly((part, lr) -> {
+          String str = "";
+
+          while (lr.hasNext()) {
+            str += lr.readLineQuietly();
+          }
+
+          lr.closeQuietly();
+          return str;
+        });
+
+    String res = "";
+    for (CompletableFuture<String> cf : futures) {
+      res += cf.get();
+    }
+
+    assertEquals("1234567891011", res);
+  }
+
+  @Test
+  public void testReduceAndCollect()
+      throws InterruptedException, ExecutionException, IOException {
+    assertEquals(Integer.valueOf(66), plrWithExec
+        .reduce(0, (sum, line) -> sum + Integer.parseInt(line), Integer::sum)
+        .get());
+    assertEquals(
+        Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11"),
+        plr.collect(Collectors.toList()).get());
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    ParallelLineReader plrWithFile = new ParallelLineReader(2,
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8);
+
+    try (Stream<String> lines = plrWithFile.stream()) {
+      assertEquals(66, lines.mapToInt(Integer::parseInt).sum());
+    }
+    try (Stream<String> lines = plr.stream()) {
+      assertEquals("1234567891011", lines.collect(Collectors.joining()));
+    }
+  }
+
+  @Test
+  public void testIoPermits() throws IOException {
+    ParallelLineReader plrWithIo = new ParallelLineReader(2,
+        new File("src/test/resources/test.csv"), StandardCharsets.UTF_8, 2);
+
+    assertEquals(Integer.valueOf(66),
+        plrWithIo.reduce(0, (sum, line) -> sum + Integer.parseInt(line),
+            Integer::sum).join());
+  }
+
+  @Test
+  public void testReadParallellyBounded() throws IOException {
+    try (Stream<String> results = plr.readParallellyBounded((part, lr) -> {
+      String str = "";
+      while (lr.hasNext()) {
+        str += lr.readLineQuietly();
+      }
+      lr.closeQuietly();
+      return str;
+    }, 2, true)) {
+      assertEquals("1234567891011", results.collect(Collectors.joining()));
+    }
+  }
+
+  @Test
+  public void testTransformParallelly() throws IOException {
+    StringWriter writer = new StringWriter();
+    plrWithExec.transformParallelly(line -> line + line, writer, 2);
+
+    assertEquals("11\n22\n33\n44\n55\n66\n77\n88\n99\n1010\n1111\n",
+        writer.toString());
+  }
+
 }
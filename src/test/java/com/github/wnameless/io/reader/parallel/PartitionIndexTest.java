@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PartitionIndexTest {
+
+  private static File createFile(Path dir, int lines) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= lines; i++) {
+      sb.append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+    }
+    return TestFiles.createFile(dir, sb.toString());
+  }
+
+  @Test
+  public void testGetPartitionPoints(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 100);
+    PartitionIndex index =
+        PartitionIndex.build(file, StandardCharsets.UTF_8, 7);
+
+    assertEquals(100, index.getLineCount());
+    for (int maxLines = 1; maxLines <= 101; maxLines++) {
+      assertEquals(
+          LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8,
+              maxLines),
+          index.getPartitionPlan(maxLines).asList());
+    }
+  }
+
+  @Test
+  public void testSaveAndLoad(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 50);
+    File indexFile = PartitionIndex.getIndexFile(file);
+
+    assertNull(PartitionIndex.load(file, StandardCharsets.UTF_8));
+    PartitionIndex.getOrBuild(file, StandardCharsets.UTF_8, 5);
+    assertTrue(indexFile.isFile());
+
+    PartitionIndex index = PartitionIndex.load(file, StandardCharsets.UTF_8);
+    assertNotNull(index);
+    assertEquals(5, index.getSampleInterval());
+    assertEquals(
+        LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8, 10),
+        index.getPartitionPlan(10).asList());
+    assertNull(PartitionIndex.load(file, StandardCharsets.ISO_8859_1));
+
+    Files.write(file.toPath(), "1\n".getBytes(StandardCharsets.UTF_8));
+    assertNull(PartitionIndex.load(file, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testLoadCorruptIndex(@TempDir Path tempDir) throws IOException {
+    File file = createFile(tempDir, 50);
+    File indexFile = PartitionIndex.getIndexFile(file);
+    PartitionIndex.build(file, StandardCharsets.UTF_8, 5).save();
+    byte[] saved = Files.readAllBytes(indexFile.toPath());
+
+    // offsets of the sample interval, the line count, the number of offsets
+    // and the second offset
+    int[] offsets = new int[] { 31, 31, 35, 35, 43, 43, 55 };
+    long[] values = new long[] { 0, -3, 999, 40, -1, 0x7FFFFFF, 1L << 40 };
+    for (int i = 0; i < offsets.length; i++) {
+      ByteBuffer bytes = ByteBuffer.wrap(saved.clone());
+      if (offsets[i] == 35 || offsets[i] == 55) {
+        bytes.putLong(offsets[i], values[i]);
+      } else {
+        bytes.putInt(offsets[i], (int) values[i]);
+      }
+      Files.write(indexFile.toPath(), bytes.array());
+
+      assertNull(PartitionIndex.load(file, StandardCharsets.UTF_8));
+      assertEquals(
+          LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8, 10),
+          PartitionIndex.getOrBuild(file, StandardCharsets.UTF_8, 5)
+              .getPartitionPlan(10).asList());
+    }
+  }
+
+  @Test
+  public void testReadParallellyIndexed()
+      throws InterruptedException, ExecutionException, IOException {
+    File file = new File("src/test/resources/test.csv");
+
+    try {
+      String res = "";
+      for (CompletableFuture<String> cf : LineReaders.readParallellyIndexed(
+          file, StandardCharsets.UTF_8, 2, (part, lr) -> {
+            String str = "";
+
+            while (lr.hasNext()) {
+              str += lr.readLineQuietly();
+            }
+
+            lr.closeQuietly();
+            return str;
+          }, Executors.newFixedThreadPool(4))) {
+        res += cf.get();
+      }
+
+      assertEquals("1234567891011", res);
+    } finally {
+      PartitionIndex.getIndexFile(file).delete();
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class PartitionPlanTest {
+
+  File file = new File("src/test/resources/test.csv");
+
+  @Test
+  public void testGetPartitionPlan() throws IOException {
+    for (int maxLines = 1; maxLines <= 5; maxLines++) {
+      PartitionPlan plan = LineReaders.getPartitionPlan(file,
+          StandardCharsets.UTF_8, maxLines);
+
+      assertTrue(plan.isComplete());
+      assertEquals(LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8,
+          maxLines), plan.asList());
+    }
+  }
+
+  @Test
+  public void testGetPartitionPlanLazily() throws IOException {
+    PartitionPlan plan = LineReaders.getPartitionPlanLazily(file,
+        StandardCharsets.UTF_8, 2, ForkJoinPool.commonPool());
+
+    List<Long> points = new ArrayList<>();
+    PrimitiveIterator.OfLong iter = plan.iterator();
+    while (iter.hasNext()) {
+      points.add(iter.nextLong());
+    }
+
+    assertEquals(LineReaders.getPartitionPoints(file, StandardCharsets.UTF_8,
+        2), points);
+    assertTrue(plan.isComplete());
+    assertEquals(false, plan.await(points.size()));
+  }
+
+  @Test
+  public void testStreamingPlan() throws Exception {
+    PartitionPlan plan = new PartitionPlan();
+    CompletableFuture<List<Long>> consumer = CompletableFuture.supplyAsync(
+        () -> {
+          List<Long> points = new ArrayList<>();
+          plan.forEach(points::add);
+          return points;
+        });
+
+    for (long i = 0; i < 1000; i++) {
+      plan.add(i * 10);
+    }
+    plan.complete();
+
+    List<Long> points = consumer.get();
+    assertEquals(1000, points.size());
+    assertEquals(Long.valueOf(9990), points.get(999));
+    assertEquals(9990, plan.get(999));
+    assertEquals(1000, plan.toArray().length);
+  }
+
+  @Test
+  public void testManyWaitingConsumers() throws Exception {
+    PartitionPlan plan = new PartitionPlan();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<CompletableFuture<Long>> consumers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      consumers.add(CompletableFuture.supplyAsync(() -> {
+        long sum = 0;
+        PrimitiveIterator.OfLong iter = plan.iterator();
+        while (iter.hasNext()) {
+          sum += iter.nextLong();
+        }
+        return sum;
+      }, executor));
+    }
+
+    // Pauses now and then, so consumers catch up and wait for new points
+    for (long i = 0; i < 100000; i++) {
+      plan.add(i);
+      if (i % 1000 == 0) Thread.sleep(1);
+    }
+    plan.complete();
+
+    for (CompletableFuture<Long> consumer : consumers) {
+      assertEquals(Long.valueOf(99999L * 100000 / 2),
+          consumer.get(10, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testGetSkipPoints() throws IOException {
+    assertEquals(Arrays.asList(0L, 4L, 8L),
+        LineReaders.getSkipPoints(new StringReader("a\nb\nc\nd\ne"), 2));
+  }
+
+  @Test
+  public void testFailedPlan() {
+    PartitionPlan plan = new PartitionPlan();
+    plan.add(0L);
+    plan.fail(new IOException("broken"));
+
+    PrimitiveIterator.OfLong iter = plan.iterator();
+    assertEquals(0L, iter.nextLong());
+    assertThrows(UncheckedIOException.class, () -> iter.hasNext());
+    assertThrows(IOException.class, () -> plan.awaitComplete());
+  }
+
+  @Test
+  public void testAsListIsUnmodifiable() throws IOException {
+    PartitionPlan plan = LineReaders.getPartitionPlan(file,
+        StandardCharsets.UTF_8, 3);
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> plan.asList().add(1L));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> plan.get(plan.size()));
+    assertEquals(Arrays.toString(plan.toArray()), plan.toString());
+  }
+
+}
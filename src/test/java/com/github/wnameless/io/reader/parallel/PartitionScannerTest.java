@@ -0,0 +1,147 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PartitionScannerTest {
+
+  @Test
+  public void testPartitionPoints(@TempDir Path tempDir) throws IOException {
+    String[] contents = new String[] { "1\r\n2\n3\r4\r\n\r\n5\r\r6\n7",
+        "\r\n\r\n\r\r\n\n", "abc\r", "a\nbb\r\nccc\rdddd\n" };
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    for (String content : contents) {
+      Path path = TestFiles.createFile(tempDir, content).toPath();
+
+      try (FileChannel channel =
+          FileChannel.open(path, StandardOpenOption.READ)) {
+        long size = channel.size();
+        for (int maxLines = 1; maxLines <= 4; maxLines++) {
+          for (long blockSize = 1; blockSize <= size; blockSize++) {
+            assertEquals(
+                LineBoundaries.partitionPoints(channel, size, maxLines),
+                PartitionScanner.partitionPoints(channel, size, maxLines,
+                    blockSize, executor));
+          }
+        }
+      }
+    }
+
+    executor.shutdown();
+  }
+
+  private static List<Long> naivePartitionPoints(byte[] bytes, int maxLines) {
+    List<Long> points = new ArrayList<>();
+    points.add(0L);
+
+    long lineNum = 0;
+    for (int i = 0; i < bytes.length; i++) {
+      boolean terminator = bytes[i] == '\n' || (bytes[i] == '\r'
+          && (i + 1 == bytes.length || bytes[i + 1] != '\n'));
+      if (terminator && ++lineNum % maxLines == 0) points.add(i + 1L);
+    }
+    byte last = bytes.length == 0 ? (byte) '\n' : bytes[bytes.length - 1];
+    if (last != '\n' && last != '\r' && ++lineNum % maxLines == 0) {
+      points.add((long) bytes.length);
+    }
+
+    return points;
+  }
+
+  @Test
+  public void testPartitionPointsAcrossBuffers(@TempDir Path tempDir)
+      throws IOException {
+    byte[] bytes = new byte[(1 << 18) + 3];
+    Arrays.fill(bytes, (byte) 'a');
+    bytes[(1 << 16) - 1] = '\r';
+    bytes[1 << 16] = '\n';
+    bytes[(1 << 17) - 1] = '\r';
+    bytes[(1 << 17) + 5] = '\n';
+    bytes[(1 << 18) - 1] = '\r';
+    bytes[1 << 18] = '\r';
+
+    Path path = TestFiles.createFile(tempDir, "").toPath();
+    Files.write(path, bytes);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (int maxLines = 1; maxLines <= 3; maxLines++) {
+        List<Long> expected = naivePartitionPoints(bytes, maxLines);
+
+        assertEquals(expected,
+            LineBoundaries.partitionPoints(channel, size, maxLines));
+        assertEquals(expected, PartitionScanner.partitionPoints(channel, size,
+            maxLines, 1 << 16, executor));
+        assertEquals(expected, PartitionScanner.partitionPoints(channel, size,
+            maxLines, 1000, executor));
+      }
+    }
+
+    executor.shutdown();
+  }
+
+  @Test
+  public void testFileShrunkDuringScan(@TempDir Path tempDir)
+      throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 3 << 15; i++) {
+      sb.append("x\n");
+    }
+    Path path = TestFiles.createFile(tempDir, sb.toString()).toPath();
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      long size = channel.size();
+      long[] lineEnds = new long[1];
+      assertTimeoutPreemptively(Duration.ofSeconds(10),
+          () -> LineBoundaries.scanTerminators(channel, 0, size, size,
+              lineEnd -> {
+                // Leaves a single byte after the first buffer of the scan
+                if (lineEnds[0]++ == 0) {
+                  try {
+                    channel.truncate((1 << 16) + 1);
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                }
+                return true;
+              }));
+      assertEquals(1 << 15, lineEnds[0]);
+    }
+  }
+
+}
@@ -0,0 +1,46 @@
+/*
+ *
+ * Copyright 2020 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.io.reader.parallel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class TestFiles {
+
+  private TestFiles() {}
+
+  /**
+   * Creates an UTF-8 file in the given directory, which is usually a JUnit
+   * {@code @TempDir}, so the file is deleted after the test.
+   * 
+   * @param dir
+   *          the directory of the file
+   * @param content
+   *          the content of the file
+   * @return the created {@link File}
+   * @throws IOException
+   *           if any I/O Exception happened during writing
+   */
+  static File createFile(Path dir, String content) throws IOException {
+    Path path = Files.createTempFile(dir, "test", ".txt");
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return path.toFile();
+  }
+
+}